@@ -0,0 +1,143 @@
+package BenchmarkPackage;
+
+import IndexPackage.IndexerSettings;
+import IndexPackage.WebsiteDocumentBuilder;
+import IndexPackage.WebsiteLineParser;
+import IndexPackage.WriteProfile;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * This class measures how many documents per second the index writer adds with each
+ * analyzer and write profile. The standard analyzer with the stop words of the indexer
+ * is the one the indexer uses; the English analyzer adds stemming and the whitespace
+ * analyzer only splits on spaces. Every measurement iteration writes a new index in a
+ * temporary directory, which is thrown away at the end of the iteration.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class AddDocumentBenchmark {
+    private static final int NUM_DOCS = 1024;
+    private static final int TEXT_LENGTH = 2000;
+
+    @Param({"standard", "english", "whitespace"})
+    private String analyzerName;
+
+    @Param({"default", "bulk-load"})
+    private String profileName;
+
+    private Document[] documents;
+    private int nextDocument;
+    private Path indexPath;
+    private Directory directory;
+    private IndexWriter writer;
+
+    /**
+     * Creates the documents the way the indexer does.
+     * @throws Exception
+     */
+    @Setup(Level.Trial)
+    public void createDocuments() throws Exception {
+        WebsiteLineParser parser = new WebsiteLineParser();
+        WebsiteDocumentBuilder builder = new WebsiteDocumentBuilder(new IndexerSettings());
+        documents = new Document[NUM_DOCS];
+        List<String> lines = new SyntheticCorpus(42).nextLines(NUM_DOCS, TEXT_LENGTH);
+        for (int i = 0; i < NUM_DOCS; i++) {
+            parser.parse(lines.get(i));
+            documents[i] = builder.createWebsiteDocument(parser,
+                    WebsiteDocumentBuilder.contentHash(parser.getTitle(),
+                            parser.getText()));
+        }
+    }
+
+    /**
+     * Opens a writer on a new index.
+     * @throws IOException
+     */
+    @Setup(Level.Iteration)
+    public void openWriter() throws IOException {
+        indexPath = Files.createTempDirectory("cs242-add");
+        directory = FSDirectory.open(indexPath);
+        writer = new IndexWriter(directory, WriteProfile.fromName(profileName)
+                .createConfig(createAnalyzer(analyzerName)));
+    }
+
+    /**
+     * Throws the index of the iteration away.
+     * @throws IOException
+     */
+    @TearDown(Level.Iteration)
+    public void closeWriter() throws IOException {
+        writer.rollback();
+        directory.close();
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(indexPath)) {
+            walk.forEach(paths::add);
+        }
+        Collections.reverse(paths); //files before the directories holding them
+        for (Path path : paths)
+            Files.delete(path);
+    }
+
+    /**
+     * Adds the next document to the index.
+     * @return The sequence number of the operation
+     * @throws IOException
+     */
+    @Benchmark
+    public long addDocument() throws IOException {
+        return writer.addDocument(documents[nextDocument++ & (NUM_DOCS - 1)]);
+    }
+
+    /**
+     * Creates the analyzer with the given name.
+     * @param name The name of the analyzer: standard, english or whitespace
+     * @return The analyzer
+     */
+    private static Analyzer createAnalyzer(String name) {
+        switch (name) {
+            case "english":
+                return new EnglishAnalyzer();
+            case "whitespace":
+                return new WhitespaceAnalyzer();
+            default:
+                return new StandardAnalyzer(EnglishAnalyzer.ENGLISH_STOP_WORDS_SET);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package BenchmarkPackage;
+
+import IndexPackage.Indexer;
+import IndexPackage.IndexerSettings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * This class builds an index of a synthetic corpus in a temporary directory for the
+ * query benchmarks, with the indexer itself, and deletes it afterwards. The files the
+ * indexer writes besides the index, such as the document times, are kept in the same
+ * temporary directory.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class BenchmarkIndex {
+    private static final long SEED = 42;
+    private final Path directory;
+    private final Path indexPath;
+
+    /**
+     * Generates the corpus and indexes it.
+     * @param numDocs The number of websites
+     * @param textLength The number of characters of text of each website
+     * @param offsets True to index the offsets of the text for highlighting
+     * @throws IOException
+     */
+    BenchmarkIndex(int numDocs, int textLength, boolean offsets) throws IOException {
+        directory = Files.createTempDirectory("cs242-bench");
+        indexPath = directory.resolve("Index_Files");
+        File dataDir = directory.resolve("Data_Files").toFile();
+        if (!dataDir.mkdir())
+            throw new IOException("Could not create " + dataDir);
+        File dataFile = new File(dataDir, "synthetic.data");
+        new SyntheticCorpus(SEED).writeDataFile(dataFile, numDocs, textLength);
+
+        IndexerSettings settings = new IndexerSettings();
+        settings.setIndexOffsets(offsets);
+        settings.setQuarantinePath(directory.resolve("quarantine.data").toString());
+        settings.setMetricsPath(directory.resolve("index_metrics.json").toString());
+        settings.setTimesPath(directory.resolve("lucenetimes.bin").toString());
+        new Indexer(new File[] {dataFile}, indexPath.toString(), settings);
+    }
+
+    /**
+     * Retrieves the path of the index.
+     * @return The index directory path
+     */
+    String getIndexPath() { return indexPath.toString(); }
+
+    /**
+     * Deletes the index and the corpus.
+     * @throws IOException
+     */
+    void delete() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.forEach(paths::add);
+        }
+        Collections.reverse(paths); //files before the directories holding them
+        for (Path path : paths)
+            Files.delete(path);
+    }
+}
@@ -0,0 +1,104 @@
+package BenchmarkPackage;
+
+import IndexPackage.IndexerSettings;
+import IndexPackage.WebsiteDocumentBuilder;
+import IndexPackage.WebsiteLineParser;
+import org.apache.lucene.document.Document;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the work the indexer does for each line before Lucene sees it:
+ * parsing the JSON of the line, and parsing it, hashing its content and creating its
+ * document. The lines are held in one buffer like a chunk of a .data file.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DocumentBuildBenchmark {
+    private static final int NUM_LINES = 256;
+
+    @Param({"1000", "10000"})
+    private int textLength;
+
+    @Param({"false", "true"})
+    private boolean offsets;
+
+    private ByteBuffer chunk;
+    private int[] lineStarts;
+    private int[] lineEnds;
+    private int nextLine;
+    private WebsiteLineParser parser;
+    private WebsiteDocumentBuilder builder;
+
+    /** Generates the lines and puts them in one buffer. */
+    @Setup
+    public void setup() {
+        List<String> lines = new SyntheticCorpus(42).nextLines(NUM_LINES, textLength);
+        StringBuilder text = new StringBuilder();
+        lineStarts = new int[NUM_LINES];
+        lineEnds = new int[NUM_LINES];
+        int position = 0;
+        for (int i = 0; i < NUM_LINES; i++) {
+            byte[] bytes = lines.get(i).getBytes(StandardCharsets.UTF_8);
+            lineStarts[i] = position;
+            lineEnds[i] = position + bytes.length;
+            position += bytes.length + 1;
+            text.append(lines.get(i)).append('\n');
+        }
+        chunk = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        parser = new WebsiteLineParser();
+        IndexerSettings settings = new IndexerSettings();
+        settings.setIndexOffsets(offsets);
+        builder = new WebsiteDocumentBuilder(settings);
+    }
+
+    /**
+     * Parses the next line.
+     * @return The text of the website, so the parsing is not optimized away
+     * @throws ParseException
+     */
+    @Benchmark
+    public String parseLine() throws ParseException {
+        int line = nextLine++ & (NUM_LINES - 1);
+        parser.parse(chunk, lineStarts[line], lineEnds[line]);
+        return parser.getText();
+    }
+
+    /**
+     * Parses the next line, hashes its content and creates its document, as the
+     * indexer does for every line.
+     * @return The document of the website
+     * @throws ParseException
+     */
+    @Benchmark
+    public Document parseAndBuild() throws ParseException {
+        int line = nextLine++ & (NUM_LINES - 1);
+        parser.parse(chunk, lineStarts[line], lineEnds[line]);
+        long hash = WebsiteDocumentBuilder.contentHash(parser.getTitle(),
+                parser.getText());
+        return builder.createWebsiteDocument(parser, hash);
+    }
+}
@@ -0,0 +1,83 @@
+package BenchmarkPackage;
+
+import QueryPackage.LuceneQuerySearcher;
+import QueryPackage.SearcherSettings;
+import org.json.simple.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures how the cost of retrieveTopHits, which loads and highlights the
+ * top hits, grows with the length of the pages, both when the text is analyzed again
+ * for highlighting and when it is highlighted from the offsets in the index. The
+ * result cache is turned off so that every call does the work.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HighlightBenchmark {
+    private static final int NUM_DOCS = 200;
+    private static final int NUM_HITS = 10;
+    private static final String QUERY = "computer science";
+
+    @Param({"1000", "10000", "100000"})
+    private int textLength;
+
+    @Param({"false", "true"})
+    private boolean offsets;
+
+    private BenchmarkIndex index;
+    private LuceneQuerySearcher querySearcher;
+
+    /**
+     * Builds the index and opens the searcher without a result cache.
+     * @throws IOException
+     */
+    @Setup
+    public void setup() throws IOException {
+        index = new BenchmarkIndex(NUM_DOCS, textLength, offsets);
+        SearcherSettings settings = new SearcherSettings();
+        settings.setCacheEntries(0);
+        querySearcher = new LuceneQuerySearcher(index.getIndexPath(), settings);
+    }
+
+    /**
+     * Closes the searcher and deletes the index.
+     * @throws IOException
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        querySearcher.close();
+        index.delete();
+    }
+
+    /**
+     * Searches the query and loads and highlights its top hits.
+     * @return The results
+     * @throws Exception
+     */
+    @Benchmark
+    public JSONArray retrieveTopHits() throws Exception {
+        return querySearcher.retrieveTopHits(QUERY, NUM_HITS);
+    }
+}
@@ -0,0 +1,92 @@
+package BenchmarkPackage;
+
+import QueryPackage.LuceneQuerySearcher;
+import QueryPackage.SearcherSettings;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.TopDocs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the latency of performSearch for a term query, a phrase query and
+ * a boolean query over an index of a synthetic corpus. Only the search is measured;
+ * the documents of the hits are not loaded.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    private static final int NUM_DOCS = 20000;
+    private static final int TEXT_LENGTH = 2000;
+    private static final int NUM_HITS = 10;
+
+    @Param({"term", "phrase", "boolean"})
+    private String queryType;
+
+    private BenchmarkIndex index;
+    private LuceneQuerySearcher querySearcher;
+    private String query;
+
+    /**
+     * Builds the index and opens the searcher without a result cache.
+     * @throws IOException
+     */
+    @Setup
+    public void setup() throws IOException {
+        index = new BenchmarkIndex(NUM_DOCS, TEXT_LENGTH, false);
+        SearcherSettings settings = new SearcherSettings();
+        settings.setCacheEntries(0);
+        querySearcher = new LuceneQuerySearcher(index.getIndexPath(), settings);
+        switch (queryType) {
+            case "phrase":
+                query = "\"computer science\"";
+                break;
+            case "boolean":
+                query = "+computer +science -calendar";
+                break;
+            default:
+                query = "research";
+        }
+    }
+
+    /**
+     * Closes the searcher and deletes the index.
+     * @throws IOException
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        querySearcher.close();
+        index.delete();
+    }
+
+    /**
+     * Searches the query.
+     * @return The top hits
+     * @throws IOException
+     * @throws ParseException
+     */
+    @Benchmark
+    public TopDocs performSearch() throws IOException, ParseException {
+        return querySearcher.performSearch(query, NUM_HITS);
+    }
+}
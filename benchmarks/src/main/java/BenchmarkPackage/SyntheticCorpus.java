@@ -0,0 +1,179 @@
+package BenchmarkPackage;
+
+import org.json.simple.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class generates websites in the line format of the .data files from our JSoup
+ * crawler, one JSON object with a url, title and text per line, so the benchmarks need
+ * no downloaded dataset. Words are drawn from a fixed vocabulary with a Zipf
+ * distribution, like the words of real pages: a few university words such as computer,
+ * science and student are very common, and most of the vocabulary is rare. The same
+ * seed always gives the same corpus.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class SyntheticCorpus {
+    private static final String[] COMMON_WORDS = {"university", "student", "computer",
+            "science", "research", "faculty", "course", "department", "campus",
+            "engineering", "graduate", "library", "calendar", "admissions", "event",
+            "physics", "the", "of", "and", "to", "in", "for", "with", "on"};
+    private static final String[] SYLLABLES = {"ba", "ce", "di", "fo", "gu", "ha", "ki",
+            "lo", "mu", "ne", "po", "ra", "si", "ta", "vo", "we", "xi", "yo", "za", "qu"};
+    private static final int VOCABULARY_SIZE = 20000;
+    private static final double ZIPF_EXPONENT = 1.0;
+    private static final int MIN_TITLE_WORDS = 2;
+    private static final int MAX_TITLE_WORDS = 6;
+
+    private final Random random;
+    private final String[] vocabulary;
+    private final double[] cumulative;
+
+    /**
+     * Constructs the generator.
+     * @param seed The seed of the random words
+     */
+    public SyntheticCorpus(long seed) {
+        random = new Random(seed);
+        vocabulary = createVocabulary(new Random(seed));
+        cumulative = new double[VOCABULARY_SIZE];
+        double sum = 0;
+        for (int rank = 0; rank < VOCABULARY_SIZE; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < VOCABULARY_SIZE; rank++)
+            cumulative[rank] /= sum;
+    }
+
+    /**
+     * Creates the vocabulary, with the common words first and made-up words of two to
+     * four syllables after them.
+     * @param random The source of the made-up words
+     * @return The words in order of how common they are
+     */
+    private static String[] createVocabulary(Random random) {
+        String[] words = new String[VOCABULARY_SIZE];
+        System.arraycopy(COMMON_WORDS, 0, words, 0, COMMON_WORDS.length);
+        for (int i = COMMON_WORDS.length; i < VOCABULARY_SIZE; i++) {
+            StringBuilder word = new StringBuilder();
+            int numSyllables = 2 + random.nextInt(3);
+            for (int s = 0; s < numSyllables; s++)
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    /**
+     * Draws one word from the vocabulary.
+     * @return The word
+     */
+    private String nextWord() {
+        double value = random.nextDouble();
+        int low = 0;
+        int high = VOCABULARY_SIZE - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulative[middle] < value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return vocabulary[low];
+    }
+
+    /**
+     * Creates words separated by spaces up to about the given number of characters.
+     * @param numChars The number of characters to aim for
+     * @return The words
+     */
+    public String nextText(int numChars) {
+        StringBuilder text = new StringBuilder(numChars + 16);
+        while (text.length() < numChars) {
+            if (text.length() > 0)
+                text.append(' ');
+            text.append(nextWord());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Creates the line of one website in the .data format.
+     * @param id The number of the website, used in its url
+     * @param textLength The number of characters of text to aim for
+     * @return The JSON line without a line break
+     */
+    @SuppressWarnings("unchecked")
+    public String nextLine(int id, int textLength) {
+        int numTitleWords = MIN_TITLE_WORDS +
+                random.nextInt(MAX_TITLE_WORDS - MIN_TITLE_WORDS + 1);
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < numTitleWords; i++) {
+            if (i > 0)
+                title.append(' ');
+            title.append(nextWord());
+        }
+
+        JSONObject website = new JSONObject();
+        website.put("url", "http://www.cs.example.edu/pages/" + id + ".html");
+        website.put("title", title.toString());
+        website.put("text", nextText(textLength));
+        return website.toJSONString();
+    }
+
+    /**
+     * Creates the lines of the given number of websites.
+     * @param numDocs The number of websites
+     * @param textLength The number of characters of text of each website
+     * @return The JSON lines
+     */
+    public List<String> nextLines(int numDocs, int textLength) {
+        List<String> lines = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++)
+            lines.add(nextLine(i, textLength));
+        return lines;
+    }
+
+    /**
+     * Writes a .data file of the given number of websites.
+     * @param file The file to write
+     * @param numDocs The number of websites
+     * @param textLength The number of characters of text of each website
+     * @throws IOException
+     */
+    public void writeDataFile(File file, int numDocs, int textLength) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(),
+                StandardCharsets.UTF_8)) {
+            for (int i = 0; i < numDocs; i++) {
+                writer.write(nextLine(i, textLength));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Writes a synthetic .data file to try the indexer on.
+     * @param args The file to write, the number of websites (default 10000) and the
+     *             number of characters of text of each (default 2000)
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0)
+            throw new RuntimeException("Requires the .data file to write, and optionally " +
+                    "the number of websites and the characters of text of each.");
+        int numDocs = (args.length > 1) ? Integer.parseInt(args[1]) : 10000;
+        int textLength = (args.length > 2) ? Integer.parseInt(args[2]) : 2000;
+        new SyntheticCorpus(42).writeDataFile(new File(args[0]), numDocs, textLength);
+    }
+}
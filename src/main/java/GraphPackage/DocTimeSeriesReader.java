@@ -0,0 +1,192 @@
+package GraphPackage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class reads the completion times of the indexed documents. Times are read one at
+ * a time from the binary format of the DocTimeSeriesWriter through a buffered channel,
+ * so a series of any length can be streamed without holding it in memory. The helper
+ * methods also read the older text format with one time per line, and export a binary
+ * series as text.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class DocTimeSeriesReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_VARINT_BYTES = 10;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean endOfFile;
+    private long previous;
+
+    /**
+     * Opens a binary time series file for reading.
+     * @param file The file written by the DocTimeSeriesWriter
+     * @throws IOException
+     */
+    public DocTimeSeriesReader(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        buffer.limit(0);
+        fill();
+        byte[] magic = DocTimeSeriesWriter.MAGIC;
+        for (byte expected : magic) {
+            if (!buffer.hasRemaining() || buffer.get() != expected) {
+                channel.close();
+                throw new IOException(file + " is not a document time series file");
+            }
+        }
+    }
+
+    /**
+     * Checks if there is another time to read.
+     * @return True if another time follows; false at the end of the file.
+     * @throws IOException
+     */
+    public boolean hasNext() throws IOException {
+        if (buffer.remaining() < MAX_VARINT_BYTES)
+            fill();
+        return buffer.hasRemaining();
+    }
+
+    /**
+     * Reads the next time in the series.
+     * @return The completion time of the next document in milliseconds
+     * @throws IOException
+     */
+    public long next() throws IOException {
+        if (!hasNext())
+            throw new EOFException("No more times in the series");
+        long zigzag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (!buffer.hasRemaining())
+                throw new EOFException("The time series file is cut off");
+            b = buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        long delta = (zigzag >>> 1) ^ -(zigzag & 1);
+        previous += delta;
+        return previous;
+    }
+
+    /**
+     * Retrieves the byte offset in the file just past the last time that was read.
+     * @return The number of bytes of the file read so far
+     * @throws IOException
+     */
+    long getPosition() throws IOException {
+        return channel.position() - buffer.remaining();
+    }
+
+    /**
+     * Moves the unread bytes to the front of the buffer and reads more of the file.
+     * @throws IOException
+     */
+    private void fill() throws IOException {
+        if (endOfFile)
+            return;
+        buffer.compact();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                endOfFile = true;
+                break;
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Closes the file.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException { channel.close(); }
+
+    /**
+     * Checks if a file is in the binary format rather than the text format.
+     * @param file The file of times
+     * @return True if the file starts with the binary header; false otherwise.
+     * @throws IOException
+     */
+    public static boolean isBinary(File file) throws IOException {
+        byte[] magic = DocTimeSeriesWriter.MAGIC;
+        byte[] header = new byte[magic.length];
+        try (InputStream input = Files.newInputStream(file.toPath())) {
+            int read = 0;
+            while (read < header.length) {
+                int count = input.read(header, read, header.length - read);
+                if (count < 0)
+                    return false;
+                read += count;
+            }
+        }
+        return Arrays.equals(header, magic);
+    }
+
+    /**
+     * Reads all the times of a file in either format into a primitive array.
+     * @param file The file of times, binary or one time per line
+     * @return The completion times in milliseconds
+     * @throws IOException
+     */
+    public static long[] readAll(File file) throws IOException {
+        long[] times = new long[1024];
+        int count = 0;
+        if (isBinary(file)) {
+            try (DocTimeSeriesReader reader = new DocTimeSeriesReader(file)) {
+                while (reader.hasNext()) {
+                    if (count == times.length)
+                        times = Arrays.copyOf(times, count * 2);
+                    times[count++] = reader.next();
+                }
+            }
+        }
+        else {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(),
+                    StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.trim().isEmpty())
+                        continue;
+                    if (count == times.length)
+                        times = Arrays.copyOf(times, count * 2);
+                    times[count++] = Long.parseLong(line.trim());
+                }
+            }
+        }
+        return Arrays.copyOf(times, count);
+    }
+
+    /**
+     * Exports a binary time series as text with one time per line.
+     * @param binaryFile The file written by the DocTimeSeriesWriter
+     * @param textFile The text file to write
+     * @throws IOException
+     */
+    public static void exportText(File binaryFile, File textFile) throws IOException {
+        try (DocTimeSeriesReader reader = new DocTimeSeriesReader(binaryFile);
+             BufferedWriter writer = Files.newBufferedWriter(textFile.toPath(),
+                     StandardCharsets.UTF_8)) {
+            while (reader.hasNext()) {
+                writer.write(Long.toString(reader.next()));
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package GraphPackage;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class writes the completion times of the indexed documents to a compact binary
+ * file while the indexer runs, instead of keeping every time in memory until the end.
+ * Each time is stored as the difference from the previous time, zigzag-encoded, and
+ * written as a variable-length integer. Most documents take
+ * one or two bytes. The file starts with a short header so readers can tell it apart
+ * from the older text format with one time per line.
+ *
+ * Indexing threads add their times a batch at a time, so the lock is taken once per
+ * batch rather than once per document. Since batches from different threads overlap
+ * in time, a time earlier than the one before it is recorded as that time instead,
+ * which keeps the series in order for the graph and the run statistics.
+ *
+ * A resumed or incremental run appends to the file of the runs before it, with its
+ * times following on from the last time in the file, so the series covers every
+ * document of the index rather than only those of the last run.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class DocTimeSeriesWriter implements Closeable {
+    static final byte[] MAGIC = {'L', 'T', 'S', 1};
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_VARINT_BYTES = 10;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long previous;
+    private long offset;
+    private long count;
+
+    /**
+     * Creates the time series file, replacing any file already at the path.
+     * @param file The file to write the times to
+     * @throws IOException
+     */
+    public DocTimeSeriesWriter(File file) throws IOException { this(file, false); }
+
+    /**
+     * Creates the time series file, or continues the one already at the path.
+     * @param file The file to write the times to
+     * @param append True to add the times after those already in the file, which must
+     *               be a time series file; false to replace the file
+     * @throws IOException
+     */
+    public DocTimeSeriesWriter(File file, boolean append) throws IOException {
+        if (!append || !file.exists() || file.length() == 0) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            buffer.put(MAGIC);
+            return;
+        }
+
+        long validLength;
+        try (DocTimeSeriesReader reader = new DocTimeSeriesReader(file)) {
+            validLength = reader.getPosition();
+            try {
+                while (reader.hasNext()) {
+                    previous = reader.next();
+                    validLength = reader.getPosition();
+                }
+            } catch (EOFException e) {
+                //the last time was cut off when the run stopped and is written over
+            }
+        }
+        offset = previous;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+    }
+
+    /**
+     * Adds the completion time of the next document. Safe to call from several
+     * indexing threads.
+     * @param time The completion time of the document in milliseconds since the start
+     *             of this run
+     * @throws IOException
+     */
+    public synchronized void append(long time) throws IOException { write(time); }
+
+    /**
+     * Adds the completion times of a batch of documents, taking the lock only once.
+     * Safe to call from several indexing threads.
+     * @param times The completion times in milliseconds since the start of this run
+     * @param numTimes The number of times at the start of the array to add
+     * @throws IOException
+     */
+    public synchronized void appendAll(long[] times, int numTimes) throws IOException {
+        for (int i = 0; i < numTimes; i++)
+            write(times[i]);
+    }
+
+    /**
+     * Encodes one time into the buffer. The caller holds the lock.
+     * @param time The completion time in milliseconds since the start of this run
+     * @throws IOException
+     */
+    private void write(long time) throws IOException {
+        if (buffer.remaining() < MAX_VARINT_BYTES)
+            flushBuffer();
+        time = Math.max(time + offset, previous);
+        long delta = time - previous;
+        long zigzag = (delta << 1) ^ (delta >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.put((byte) zigzag);
+        previous = time;
+        count++;
+    }
+
+    /**
+     * Retrieves the number of times written so far by this writer, which does not
+     * include the times of earlier runs in an appended file.
+     * @return The number of documents
+     */
+    public synchronized long getCount() { return count; }
+
+    /**
+     * Writes the buffered bytes to the file.
+     * @throws IOException
+     */
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Writes the remaining times and closes the file.
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        flushBuffer();
+        channel.close();
+    }
+}
@@ -3,9 +3,7 @@ package GraphPackage;
 import org.jfree.ui.RefineryUtilities;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
-import java.util.Random;
+import java.io.IOException;
 
 /**
  * This class is for testing purposes to quickly create a graph for given files.
@@ -17,43 +15,29 @@ public class GrapherTester {
     private static final String APP_TITLE = "CS242 - Lucene Runtime Graph";
     private static final String GRAPH_TITLE = "Lucene Document Completion Times";
     private static final String LUCENE_TIME_FILENAME = "lucenetimes.txt";
-    private static final String[] LINE_TITLES = {"Lucene Indexer", "Hadoop Indexer"};
+    private static final String LINE_TITLE = "Lucene Indexer";
 
-    public static void main(String[] args) throws FileNotFoundException {
-
-        //test graphing one dataset
+    /**
+     * Shows the completion times of the runs given as arguments on one graph, or of the
+     * Lucene times file when there are none.
+     * @param args The document times file of each run
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        String[] fileNames = (args.length == 0) ? new String[] {LUCENE_TIME_FILENAME} :
+                args;
+        File[] timeListFiles = new File[fileNames.length];
+        String[] lineTitles = new String[fileNames.length];
+        for (int i = 0; i < fileNames.length; i++) {
+            timeListFiles[i] = new File(fileNames[i]);
+            lineTitles[i] = (args.length == 0) ? LINE_TITLE :
+                    timeListFiles[i].getName();
+        }
         IndexTimeGrapher chart = new IndexTimeGrapher(APP_TITLE, GRAPH_TITLE,
-                new File(LUCENE_TIME_FILENAME), LINE_TITLES[0]);
-
-//        createDummy();
-        //test graphing 2 datasets
-//        IndexTimeGrapher chart = new IndexTimeGrapher(APP_TITLE, GRAPH_TITLE,
-//                new File(LUCENE_TIME_FILENAME), new File("dummy.txt"),
-//                LINE_TITLES);
+                timeListFiles, lineTitles, IndexTimeGrapher.DEFAULT_MAX_POINTS);
 
         chart.pack( );
         RefineryUtilities.centerFrameOnScreen( chart );
         chart.setVisible( true );
     }
-
-    /**
-     * Creates dummy data to test plotting two datasets on the same graph.
-     * @throws FileNotFoundException
-     */
-    private static void createDummy() throws FileNotFoundException {
-        Random rn = new Random();
-        int[] increments = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
-                1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 2, 2, 2, 2, 2, 2,
-                2, 2, 2, 2, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 15, 20};
-        int firstNum = 100;
-        PrintWriter writer = new PrintWriter("dummy.txt");
-        for (int line = 0; line < 188640; line++) {
-            writer.println(firstNum);
-            if (line < 80000 || line > 150000) {
-                int increment = increments[rn.nextInt(increments.length)];
-                firstNum = firstNum + increment;
-            }
-        }
-        writer.close();
-    }
-}
\ No newline at end of file
+}
@@ -2,9 +2,9 @@ package GraphPackage;
 
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
+import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.NumberAxis;
-import org.jfree.chart.axis.NumberTickUnit;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.data.xy.XYDataset;
@@ -14,24 +14,26 @@ import org.jfree.ui.ApplicationFrame;
 import org.jfree.ui.RectangleInsets;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.Scanner;
+import java.io.IOException;
 
 /**
  * This class is to graph the runtimes (completion times) for each document in a line
- * graph using JFreeChart.
+ * graph using JFreeChart, for one indexing run or any number of runs to compare. Each
+ * series is downsampled to a fixed number of points before it reaches JFreeChart, so
+ * drawing the chart costs the same for any number of documents. The chart is shown in
+ * a window, or saved as a PNG or SVG file without a display for headless machines.
  *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
- *  @version 1.1
+ *  @version 1.2
  *  @since Mar 03, 2020
  */
 public class IndexTimeGrapher extends ApplicationFrame {
-    private final String X_AXIS = "Document Number";
-    private final String Y_AXIS = "Run Time (sec)";
-    private final int CHART_WIDTH = 560;
-    private final int CHART_HEIGHT = 500;
-    private final int PADDING = 10;
-    private final int TICK_INTERVAL = 50000;
+    public static final int DEFAULT_MAX_POINTS = 2000;
+    private static final String X_AXIS = "Document Number";
+    private static final String Y_AXIS = "Run Time (sec)";
+    private static final int CHART_WIDTH = 560;
+    private static final int CHART_HEIGHT = 500;
+    private static final int PADDING = 10;
+    private static final String SVG_EXTENSION = ".svg";
 
     /**
      * Constructs the grapher object with the application title, the chart title, and the
@@ -42,16 +44,23 @@ public class IndexTimeGrapher extends ApplicationFrame {
      * @param lineTitle The label for the line in the chart
      */
     public IndexTimeGrapher(String appTitle, String chartTitle, File timeListFile,
-                            String lineTitle) throws FileNotFoundException {
-        super(appTitle);
-        System.out.println("Creating the graph. Please wait.");
-
-        ArrayList<Long>[] timeList = new ArrayList[1];
-        String[] titles = new String[1];
+                            String lineTitle) throws IOException {
+        this(appTitle, chartTitle, timeListFile, lineTitle, DEFAULT_MAX_POINTS);
+    }
 
-        timeList[0] = createTimeList(timeListFile);
-        titles[0] = lineTitle;
-        createChart(chartTitle,timeList, titles);
+    /**
+     * Constructs the grapher object with the application title, the chart title, the
+     * list of completion times for all the documents, and the number of points to draw.
+     * @param appTitle The application title
+     * @param chartTitle The title of the chart/graph
+     * @param timeListFile The file with the list of times to graph
+     * @param lineTitle The label for the line in the chart
+     * @param maxPoints The largest number of points drawn for the line
+     */
+    public IndexTimeGrapher(String appTitle, String chartTitle, File timeListFile,
+                            String lineTitle, int maxPoints) throws IOException {
+        this(appTitle, chartTitle, new File[] {timeListFile}, new String[] {lineTitle},
+                maxPoints);
     }
 
     /**
@@ -66,57 +75,110 @@ public class IndexTimeGrapher extends ApplicationFrame {
      */
     public IndexTimeGrapher(String appTitle, String chartTitle, File timeListFile1,
                             File timeListFile2, String[] lineTitles)
-            throws FileNotFoundException {
+            throws IOException {
+        this(appTitle, chartTitle, new File[] {timeListFile1, timeListFile2}, lineTitles,
+                DEFAULT_MAX_POINTS);
+    }
+
+    /**
+     * Constructs the grapher object with the application title, the chart title, the
+     * files of completion times of any number of indexing runs to compare, and the
+     * titles of their lines.
+     * @param appTitle The application title
+     * @param chartTitle The title of the chart/graph
+     * @param timeListFiles The files with the list of times to graph, one per run
+     * @param lineTitles The titles of the lines, in the order of the files
+     * @param maxPoints The largest number of points drawn for each line
+     */
+    public IndexTimeGrapher(String appTitle, String chartTitle, File[] timeListFiles,
+                            String[] lineTitles, int maxPoints) throws IOException {
         super(appTitle);
+        if (timeListFiles.length != lineTitles.length)
+            throw new RuntimeException("Each file of times needs the title of its line.");
         System.out.println("Creating the graph. Please wait.");
-        createChart(chartTitle, createTimeList(timeListFile1, timeListFile2), lineTitles);
+        showChart(createChart(chartTitle, createTimeLists(timeListFiles), lineTitles,
+                maxPoints));
     }
 
     /**
      * Creates an object representing the list of times from a given file.
-     * @param timeListFile The file with the list of times, 1 time per line
-     * @return An array object representing the list of times
-     * @throws FileNotFoundException
+     * @param timeListFile The file with the list of times, either the binary file of
+     *                     the DocTimeSeriesWriter or text with 1 time per line
+     * @return An array representing the list of times in seconds
+     * @throws IOException
      */
-    private ArrayList<Long> createTimeList(File timeListFile)
-            throws FileNotFoundException {
-        Scanner s = new Scanner(timeListFile);
-        ArrayList<Long> times = new ArrayList<>();
-        while (s.hasNext()) {
-            Long timeInMS = Long.valueOf(s.nextLine());
-            times.add((long) (timeInMS/1000.0));
-        }
+    private static long[] createTimeList(File timeListFile) throws IOException {
+        long[] times = DocTimeSeriesReader.readAll(timeListFile);
+        for (int i = 0; i < times.length; i++)
+            times[i] = (long) (times[i]/1000.0);
         return times;
     }
 
     /**
-     * Creates an object representing the list of times from 2 given files to compare
-     * between the data of the two files.
-     * @param timeListFile1 The first file with the list of times, 1 time per line
-     * @param timeListFile2 The second file with the list of times, 1 time per line
-     * @return An array of 2 objects representing the list of times (also in array)
-     * @throws FileNotFoundException
+     * Creates an object representing the lists of times from the given files to compare
+     * between the data of the files.
+     * @param timeListFiles The files with the lists of times
+     * @return An array of objects representing the list of times (also in array)
+     * @throws IOException
      */
-    private ArrayList<Long>[] createTimeList(File timeListFile1, File timeListFile2)
-            throws FileNotFoundException {
-        ArrayList<Long>[] lists = new ArrayList[2];
-        lists[0] = createTimeList(timeListFile1);
-        lists[1] = createTimeList(timeListFile2);
+    private static long[][] createTimeLists(File[] timeListFiles) throws IOException {
+        long[][] lists = new long[timeListFiles.length][];
+        for (int i = 0; i < timeListFiles.length; i++)
+            lists[i] = createTimeList(timeListFiles[i]);
         return lists;
     }
 
+    /**
+     * Saves the chart of the document times of one or more indexers to a file without
+     * opening a window, so it can run on a machine without a display. The chart is an
+     * SVG file if the file name ends with .svg, and a PNG image otherwise.
+     * @param file The image file to write
+     * @param chartTitle The title of the chart/graph
+     * @param timeListFiles The files with the list of times to graph, one per indexer
+     * @param lineTitles The titles of the lines, in the order of the files
+     * @param maxPoints The largest number of points drawn for each line
+     * @throws IOException
+     */
+    public static void saveChart(File file, String chartTitle, File[] timeListFiles,
+                                 String[] lineTitles, int maxPoints) throws IOException {
+        long[][] timeLists = createTimeLists(timeListFiles);
+        if (file.getName().toLowerCase().endsWith(SVG_EXTENSION)) {
+            SvgChartWriter svg = new SvgChartWriter(chartTitle, X_AXIS, Y_AXIS);
+            for (int i = 0; i < timeLists.length; i++) {
+                int[] kept = SeriesDownsampler.largestTriangleThreeBuckets(timeLists[i],
+                        maxPoints);
+                double[] x = new double[kept.length];
+                double[] y = new double[kept.length];
+                for (int j = 0; j < kept.length; j++) {
+                    x[j] = kept[j] + 1;
+                    y[j] = timeLists[i][kept[j]];
+                }
+                svg.addSeries(lineTitles[i], x, y);
+            }
+            svg.write(file, CHART_WIDTH, CHART_HEIGHT);
+        }
+        else {
+            ChartUtilities.saveChartAsPNG(file, createChart(chartTitle, timeLists,
+                    lineTitles, maxPoints), CHART_WIDTH, CHART_HEIGHT);
+        }
+        System.out.println("The graph is saved in " + file.getAbsolutePath());
+    }
+
     /**
      * Creates the chart with the given chart title and list of completion times for
      * the documents for indexers to compare.
      * @param chartTitle The title of the chart/graph
-     * @param docTimesLists The list of document completion times (ms) for all indexers
+     * @param docTimesLists The list of document completion times (sec) for all indexers
+     * @param lineTitles The titles for each line in the graph
+     * @param maxPoints The largest number of points drawn for each line
+     * @return The chart
      */
-    private void createChart(String chartTitle, ArrayList[] docTimesLists,
-                             String[] lineTitles) {
+    private static JFreeChart createChart(String chartTitle, long[][] docTimesLists,
+                                          String[] lineTitles, int maxPoints) {
         JFreeChart lineChart = ChartFactory.createXYLineChart(
                 chartTitle,
                 X_AXIS,Y_AXIS,
-                createDataset(docTimesLists, lineTitles),
+                createDataset(docTimesLists, lineTitles, maxPoints),
                 PlotOrientation.VERTICAL,
                 true,true,false);
 
@@ -124,9 +186,16 @@ public class IndexTimeGrapher extends ApplicationFrame {
         XYPlot xyPlot = (XYPlot) lineChart.getPlot();
         NumberAxis domain = (NumberAxis) xyPlot.getDomainAxis();
         domain.setVerticalTickLabels(true);
-        domain.setTickUnit(new NumberTickUnit(TICK_INTERVAL));
+        domain.setStandardTickUnits(NumberAxis.createIntegerTickUnits());
         lineChart.setPadding(new RectangleInsets(PADDING, PADDING, PADDING, PADDING));
+        return lineChart;
+    }
 
+    /**
+     * Shows a chart in the window of the grapher.
+     * @param lineChart The chart to show
+     */
+    private void showChart(JFreeChart lineChart) {
         //customize chart
         ChartPanel chartPanel = new ChartPanel(lineChart);
         chartPanel.setPreferredSize(new java.awt.Dimension(CHART_WIDTH, CHART_HEIGHT));
@@ -136,20 +205,22 @@ public class IndexTimeGrapher extends ApplicationFrame {
     /**
      * Creates the data set to display on the graph using the document runtimes of the
      * indexers to compare. The graph takes an array of data and an array titles for the
-     * data where the arrays are ordered to correspond to each other.
+     * data where the arrays are ordered to correspond to each other. Each line is
+     * downsampled with Largest-Triangle-Three-Buckets, which keeps its spikes and
+     * plateaus.
      * @param docTimesLists The document completion time lists for indexers to compare
      * @param lineTitles The titles for each line in the graph
+     * @param maxPoints The largest number of points kept for each line
      * @return The data set created to be displayed on the graph
      */
-    private XYDataset createDataset(ArrayList[] docTimesLists, String[] lineTitles) {
+    private static XYDataset createDataset(long[][] docTimesLists, String[] lineTitles,
+                                           int maxPoints) {
         XYSeriesCollection dataset = new XYSeriesCollection();
         for (int i = 0; i < docTimesLists.length; i++) {
-            XYSeries series = new XYSeries(lineTitles[i]);
-            ArrayList<Long> docTimes = docTimesLists[i];
-            int numDocuments = docTimes.size();
-            for (int j = 0; j < numDocuments; j++) {
-                series.add(j+1, docTimes.get(j));
-            }
+            XYSeries series = new XYSeries(lineTitles[i], false, false);
+            long[] docTimes = docTimesLists[i];
+            for (int j : SeriesDownsampler.largestTriangleThreeBuckets(docTimes, maxPoints))
+                series.add(j + 1, docTimes[j], false);
             dataset.addSeries(series);
         }
         return dataset;
@@ -0,0 +1,204 @@
+package GraphPackage;
+
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.plot.CombinedDomainXYPlot;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.jfree.ui.ApplicationFrame;
+import org.jfree.ui.RefineryUtilities;
+
+import javax.swing.SwingUtilities;
+import java.awt.GraphicsEnvironment;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class shows the throughput of a run while the index is being built, instead of
+ * only after the run as the completion time graph does. At a fixed rate it drains the
+ * events the indexing threads published to a ThroughputRing and adds one point with the
+ * docs/sec, MB/sec and total documents since the last point, and the flushes and merges
+ * that finished in between. The chart keeps only the latest points of a fixed window,
+ * so the dashboard uses the same memory for a run of any length.
+ *
+ * With a display, the points are drawn in a window of four charts that share the time
+ * axis. Without one, each point is printed as a line on the console.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class LiveThroughputDashboard {
+    private static final String APP_TITLE = "CS242 - Live Indexing Throughput";
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+    private static final int CHART_WIDTH = 700;
+    private static final int CHART_HEIGHT = 700;
+
+    private final ThroughputRing ring;
+    private final int intervalMillis;
+    private final boolean window;
+    private final XYSeries docsPerSecond;
+    private final XYSeries megabytesPerSecond;
+    private final XYSeries totalDocuments;
+    private final XYSeries flushes;
+    private final XYSeries merges;
+    private final long[] counts = new long[ThroughputRing.NUM_KINDS];
+    private final long[] amounts = new long[ThroughputRing.NUM_KINDS];
+    private ScheduledExecutorService refresher;
+    private long startNanos;
+    private long lastNanos;
+    private long numDocuments;
+    private long numBytes;
+    private long numFlushes;
+    private long numMerges;
+
+    /**
+     * Constructs the dashboard. It shows a window if there is a display, and prints to
+     * the console otherwise.
+     * @param ring The ring the indexing threads publish their progress to
+     * @param intervalMillis The milliseconds between points
+     * @param windowPoints The number of latest points that are kept and drawn
+     */
+    public LiveThroughputDashboard(ThroughputRing ring, int intervalMillis,
+                                   int windowPoints) {
+        this.ring = ring;
+        this.intervalMillis = intervalMillis;
+        window = !GraphicsEnvironment.isHeadless();
+        docsPerSecond = createSeries("Docs/sec", windowPoints);
+        megabytesPerSecond = createSeries("MB/sec", windowPoints);
+        totalDocuments = createSeries("Documents", windowPoints);
+        flushes = createSeries("Flushes", windowPoints);
+        merges = createSeries("Merges", windowPoints);
+    }
+
+    /**
+     * Creates a series that drops its oldest point once it holds the window of points.
+     * @param name The name of the series in the legend
+     * @param windowPoints The largest number of points of the series
+     * @return The series
+     */
+    private static XYSeries createSeries(String name, int windowPoints) {
+        XYSeries series = new XYSeries(name, true, false);
+        series.setMaximumItemCount(windowPoints);
+        return series;
+    }
+
+    /**
+     * Opens the window, if there is a display, and starts adding a point every interval.
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+        lastNanos = startNanos;
+        if (window)
+            SwingUtilities.invokeLater(this::openWindow);
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "live-dashboard");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleAtFixedRate(this::refresh, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops adding points after adding the last one for the end of the run. The window
+     * stays open so the run can still be looked at.
+     */
+    public void stop() {
+        if (refresher == null)
+            return;
+        refresher.shutdown();
+        try {
+            refresher.awaitTermination(intervalMillis * 2L, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        refresh();
+        System.out.println(String.format("Live dashboard: %,d documents, %.1f MB, " +
+                "%d flushes, %d merges in %.1f s (%d events dropped)", numDocuments,
+                numBytes / BYTES_PER_MB, numFlushes, numMerges,
+                (lastNanos - startNanos) / NANOS_PER_SECOND, ring.getDropped()));
+    }
+
+    /**
+     * Drains the ring and adds one point for the time since the last point. This is
+     * only called by the refresh thread, and by stop() once that thread has ended.
+     */
+    private synchronized void refresh() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(amounts, 0);
+        ring.drainInto(counts, amounts);
+        long now = System.nanoTime();
+        double seconds = Math.max(now - lastNanos, 1) / NANOS_PER_SECOND;
+        lastNanos = now;
+
+        long newDocuments = counts[ThroughputRing.DOCUMENTS];
+        long newBytes = amounts[ThroughputRing.DOCUMENTS];
+        long newFlushes = counts[ThroughputRing.FLUSH];
+        long newMerges = counts[ThroughputRing.MERGE];
+        numDocuments += newDocuments;
+        numBytes += newBytes;
+        numFlushes += newFlushes;
+        numMerges += newMerges;
+
+        double elapsed = (now - startNanos) / NANOS_PER_SECOND;
+        double docsRate = newDocuments / seconds;
+        double bytesRate = newBytes / BYTES_PER_MB / seconds;
+        long documents = numDocuments;
+        if (window) {
+            //the series belong to the charts, which are only changed on the Swing thread
+            SwingUtilities.invokeLater(() -> {
+                docsPerSecond.add(elapsed, docsRate);
+                megabytesPerSecond.add(elapsed, bytesRate);
+                totalDocuments.add(elapsed, documents);
+                flushes.add(elapsed, newFlushes);
+                merges.add(elapsed, newMerges);
+            });
+        }
+        else {
+            System.out.println(String.format("[live] %7.1f s %,10.0f docs/sec " +
+                    "%8.2f MB/sec %,12d documents %3d flushes %3d merges", elapsed,
+                    docsRate, bytesRate, documents, newFlushes, newMerges));
+        }
+    }
+
+    /**
+     * Opens the window of charts. This runs on the Swing thread.
+     */
+    private void openWindow() {
+        CombinedDomainXYPlot plot = new CombinedDomainXYPlot(new NumberAxis("Seconds"));
+        plot.add(createPlot(docsPerSecond));
+        plot.add(createPlot(megabytesPerSecond));
+        plot.add(createPlot(totalDocuments));
+        plot.add(createPlot(flushes, merges));
+
+        ApplicationFrame frame = new ApplicationFrame(APP_TITLE);
+        ChartPanel chartPanel = new ChartPanel(new JFreeChart(APP_TITLE,
+                JFreeChart.DEFAULT_TITLE_FONT, plot, true));
+        chartPanel.setPreferredSize(new java.awt.Dimension(CHART_WIDTH, CHART_HEIGHT));
+        frame.setContentPane(chartPanel);
+        frame.pack();
+        RefineryUtilities.centerFrameOnScreen(frame);
+        frame.setVisible(true);
+    }
+
+    /**
+     * Creates one of the charts of the window, with its own value axis.
+     * @param series The series drawn in the chart, the first of which names the axis
+     * @return The chart as a plot of the combined plot
+     */
+    private static XYPlot createPlot(XYSeries... series) {
+        XYSeriesCollection dataset = new XYSeriesCollection();
+        for (XYSeries line : series)
+            dataset.addSeries(line);
+        NumberAxis axis = new NumberAxis((String) series[0].getKey());
+        axis.setAutoRangeIncludesZero(true);
+        return new XYPlot(dataset, null, axis, new XYLineAndShapeRenderer(true, false));
+    }
+}
@@ -0,0 +1,245 @@
+package GraphPackage;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class compares any number of indexing runs, such as the same corpus indexed with
+ * different settings or by different releases, from their document times files. Each
+ * run is summarized by its RunStatistics and compared with a chosen baseline run by its
+ * time per thousand documents. A run that is slower than the baseline by more than the
+ * threshold is marked as a regression in a JSON report, and the program exits with a
+ * non-zero status when there is one, so it can gate performance changes in a build.
+ *
+ * Usage: java GraphPackage.RunComparison [options] [name=]timesFile ...
+ * Options: --baseline=NAME (default the first run), --threshold=PERCENT (default 5),
+ * --report=PATH (default run_comparison.json), --chart=PATH for a PNG or SVG chart of
+ * the completion times of every run, and --points=N for the points of each series.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class RunComparison {
+    private static final double DEFAULT_THRESHOLD_PERCENT = 5;
+    private static final String DEFAULT_REPORT_PATH = "run_comparison.json";
+    private static final int DEFAULT_SERIES_POINTS = 200;
+    private static final String CHART_TITLE = "Document Completion Times";
+    private static final int REGRESSION_EXIT_CODE = 1;
+
+    private final List<RunStatistics> runs = new ArrayList<>();
+    private final int baseline;
+    private final double threshold;
+    private int numRegressions;
+
+    /**
+     * Reads the document times of every run and compares each with the baseline.
+     * @param names The names of the runs, which must all be different
+     * @param timeListFiles The document times file of each run, binary or text
+     * @param baselineIndex The index of the baseline run in the runs
+     * @param thresholdPercent The percent slower than the baseline that is a regression
+     * @throws IOException
+     */
+    public RunComparison(String[] names, File[] timeListFiles, int baselineIndex,
+                         double thresholdPercent) throws IOException {
+        if (baselineIndex < 0 || baselineIndex >= names.length)
+            throw new RuntimeException("The baseline run " + baselineIndex +
+                    " is not one of the " + names.length + " runs.");
+        for (int i = 0; i < names.length; i++) {
+            if (findRun(names, names[i]) != i)
+                throw new RuntimeException("Two runs are named " + names[i] + ". Name " +
+                        "them with name=timesFile.");
+            runs.add(new RunStatistics(names[i], DocTimeSeriesReader.readAll(
+                    timeListFiles[i])));
+        }
+        baseline = baselineIndex;
+        threshold = thresholdPercent / 100;
+        for (int i = 0; i < runs.size(); i++) {
+            if (isRegression(i))
+                numRegressions++;
+        }
+    }
+
+    /**
+     * Finds the first run with a name.
+     * @param names The names of the runs
+     * @param name The name to find
+     * @return The index of the run, or -1 if no run has the name
+     */
+    public static int findRun(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Computes how much slower a run is than the baseline per thousand documents.
+     * @param run The index of the run
+     * @return The change as a fraction, positive when the run is slower
+     */
+    private double changeVsBaseline(int run) {
+        return runs.get(run).getMillisPer1kDocs() /
+                Math.max(runs.get(baseline).getMillisPer1kDocs(), 1e-9) - 1;
+    }
+
+    /**
+     * Checks if a run is slower than the baseline by more than the threshold.
+     * @param run The index of the run
+     * @return True if the run is a regression; false otherwise.
+     */
+    private boolean isRegression(int run) {
+        return run != baseline && changeVsBaseline(run) > threshold;
+    }
+
+    /**
+     * Retrieves the number of runs that are regressions against the baseline.
+     * @return The number of regressions
+     */
+    public int getNumRegressions() { return numRegressions; }
+
+    /**
+     * Creates the report of the comparison, with the summary and derived series of
+     * every run and its change from the baseline.
+     * @param seriesPoints The largest number of points of each derived series
+     * @return The report as a JSON object
+     */
+    @SuppressWarnings("unchecked")
+    public JSONObject toJson(int seriesPoints) {
+        RunStatistics baselineRun = runs.get(baseline);
+        JSONArray runJson = new JSONArray();
+        for (int i = 0; i < runs.size(); i++) {
+            RunStatistics run = runs.get(i);
+            JSONObject json = run.toJson(seriesPoints);
+            json.put("changeVsBaseline", changeVsBaseline(i));
+            json.put("p99ChangeVsBaseline", (double) run.getLatencyP99() /
+                    Math.max(baselineRun.getLatencyP99(), 1) - 1);
+            json.put("regression", isRegression(i));
+            runJson.add(json);
+        }
+
+        JSONObject report = new JSONObject();
+        report.put("baseline", baselineRun.getName());
+        report.put("threshold", threshold);
+        report.put("regressions", numRegressions);
+        report.put("runs", runJson);
+        return report;
+    }
+
+    /**
+     * Saves the report to a file. The file is written under a temporary name first so
+     * that a reader never sees a partial report.
+     * @param file The JSON file to write
+     * @param seriesPoints The largest number of points of each derived series
+     * @throws IOException
+     */
+    public void saveReport(File file, int seriesPoints) throws IOException {
+        Path path = file.toPath();
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(tempPath,
+                StandardCharsets.UTF_8))) {
+            writer.println(toJson(seriesPoints).toJSONString());
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Prints one line per run with its time per thousand documents, p99 latency and
+     * change from the baseline.
+     */
+    public void printSummary() {
+        for (int i = 0; i < runs.size(); i++) {
+            RunStatistics run = runs.get(i);
+            String verdict = (i == baseline) ? "baseline" :
+                    isRegression(i) ? "REGRESSION" : "ok";
+            System.out.println(String.format("%-20s %10.1f ms/1k docs  p99 %5d ms  " +
+                    "%+7.1f%%  %s", run.getName(), run.getMillisPer1kDocs(),
+                    run.getLatencyP99(), changeVsBaseline(i) * 100, verdict));
+        }
+    }
+
+    /**
+     * Compares the runs given on the command line, saves the report and optionally the
+     * chart, and exits with a non-zero status if any run is a regression.
+     * @param args The options and the runs, each as a times file or name=timesFile
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        String baselineName = null;
+        double thresholdPercent = DEFAULT_THRESHOLD_PERCENT;
+        String reportPath = DEFAULT_REPORT_PATH;
+        String chartPath = null;
+        int seriesPoints = DEFAULT_SERIES_POINTS;
+        List<String> names = new ArrayList<>();
+        List<File> files = new ArrayList<>();
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (arg.startsWith("--")) {
+                if (split < 0)
+                    throw new RuntimeException("Option " + arg + " requires a value.");
+                String value = arg.substring(split + 1);
+                switch (arg.substring(2, split)) {
+                    case "baseline":
+                        baselineName = value;
+                        break;
+                    case "threshold":
+                        thresholdPercent = Double.parseDouble(value);
+                        break;
+                    case "report":
+                        reportPath = value;
+                        break;
+                    case "chart":
+                        chartPath = value;
+                        break;
+                    case "points":
+                        seriesPoints = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new RuntimeException("Unknown option " + arg);
+                }
+            }
+            else {
+                File file = new File((split < 0) ? arg : arg.substring(split + 1));
+                names.add((split < 0) ? file.getName() : arg.substring(0, split));
+                files.add(file);
+            }
+        }
+        if (files.isEmpty())
+            throw new RuntimeException("Requires the document times file of at least " +
+                    "one run, as a path or name=path.");
+
+        String[] nameArray = names.toArray(new String[0]);
+        File[] fileArray = files.toArray(new File[0]);
+        int baselineIndex = (baselineName == null) ? 0 : findRun(nameArray, baselineName);
+        if (baselineIndex < 0)
+            throw new RuntimeException("The baseline run " + baselineName +
+                    " is not one of the runs.");
+        RunComparison comparison = new RunComparison(nameArray, fileArray, baselineIndex,
+                thresholdPercent);
+        comparison.printSummary();
+        comparison.saveReport(new File(reportPath), seriesPoints);
+        System.out.println("The comparison report is saved in " +
+                new File(reportPath).getAbsolutePath());
+        if (chartPath != null) {
+            System.setProperty("java.awt.headless", "true");
+            IndexTimeGrapher.saveChart(new File(chartPath), CHART_TITLE, fileArray,
+                    nameArray, IndexTimeGrapher.DEFAULT_MAX_POINTS);
+        }
+        if (comparison.getNumRegressions() > 0) {
+            System.out.println(comparison.getNumRegressions() + " run(s) are more than " +
+                    thresholdPercent + "% slower than the baseline.");
+            System.exit(REGRESSION_EXIT_CODE);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package GraphPackage;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * This class summarizes one indexing run from the completion time of each of its
+ * documents. Besides the total time and the per-document latencies, it derives two
+ * series over buckets of a thousand documents, the throughput in docs/sec and the time
+ * per thousand documents, and finds where the time per thousand documents changes
+ * sharply, such as when merges start to fall behind or the heap fills up.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class RunStatistics {
+    static final int DOCS_PER_BUCKET = 1000;
+    private static final int SLOPE_BLOCKS = 20;
+    private static final double SLOPE_CHANGE_RATIO = 1.5;
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    private final String name;
+    private final int numDocuments;
+    private final long totalMillis;
+    private final long latencyP50;
+    private final long latencyP99;
+    private final long latencyMax;
+    private final long[] millisPerBucket;
+    private final JSONArray slopeChanges = new JSONArray();
+
+    /**
+     * Computes the statistics of a run.
+     * @param name The name of the run
+     * @param times The completion time of each document in milliseconds since the start
+     *              of the run, in the order the documents were indexed
+     */
+    RunStatistics(String name, long[] times) {
+        if (times.length == 0)
+            throw new RuntimeException("The run " + name + " has no document times.");
+        this.name = name;
+        numDocuments = times.length;
+        totalMillis = times[numDocuments - 1];
+
+        long[] latencies = new long[numDocuments];
+        latencies[0] = times[0];
+        for (int i = 1; i < numDocuments; i++)
+            latencies[i] = times[i] - times[i - 1];
+        Arrays.sort(latencies);
+        latencyP50 = percentile(latencies, 0.50);
+        latencyP99 = percentile(latencies, 0.99);
+        latencyMax = latencies[numDocuments - 1];
+
+        int numBuckets = (numDocuments + DOCS_PER_BUCKET - 1) / DOCS_PER_BUCKET;
+        millisPerBucket = new long[numBuckets];
+        for (int bucket = 0; bucket < numBuckets; bucket++) {
+            int first = bucket * DOCS_PER_BUCKET;
+            int last = Math.min(first + DOCS_PER_BUCKET, numDocuments) - 1;
+            long elapsed = times[last] - ((first == 0) ? 0 : times[first - 1]);
+            //a partial last bucket is scaled up to a thousand documents
+            millisPerBucket[bucket] = elapsed * DOCS_PER_BUCKET / (last - first + 1);
+        }
+        findSlopeChanges();
+    }
+
+    /**
+     * Finds a percentile of sorted values by the nearest rank.
+     * @param sorted The values in increasing order
+     * @param fraction The percentile as a fraction, such as 0.99
+     * @return The value at the percentile
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        int rank = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+    }
+
+    /**
+     * Splits the buckets into blocks and records every block whose mean time per
+     * thousand documents is more than the change ratio above or below the block before
+     * it. Runs of any length get the same number of blocks, so the list stays short.
+     */
+    @SuppressWarnings("unchecked")
+    private void findSlopeChanges() {
+        int blockSize = Math.max(1, millisPerBucket.length / SLOPE_BLOCKS);
+        double previous = -1;
+        for (int start = 0; start + blockSize <= millisPerBucket.length;
+             start += blockSize) {
+            double sum = 0;
+            for (int i = start; i < start + blockSize; i++)
+                sum += millisPerBucket[i];
+            double mean = Math.max(sum / blockSize, 1);
+            if (previous > 0 && (mean / previous >= SLOPE_CHANGE_RATIO ||
+                    previous / mean >= SLOPE_CHANGE_RATIO)) {
+                JSONObject change = new JSONObject();
+                change.put("document", (long) start * DOCS_PER_BUCKET + 1);
+                change.put("msPer1kDocsBefore", previous);
+                change.put("msPer1kDocsAfter", mean);
+                slopeChanges.add(change);
+            }
+            previous = mean;
+        }
+    }
+
+    /**
+     * Retrieves the name of the run.
+     * @return The name of the run
+     */
+    String getName() { return name; }
+
+    /**
+     * Retrieves the milliseconds per thousand documents over the whole run, which
+     * compares runs of different numbers of documents.
+     * @return The average time per thousand documents
+     */
+    double getMillisPer1kDocs() {
+        return (double) totalMillis * DOCS_PER_BUCKET / numDocuments;
+    }
+
+    /**
+     * Retrieves the 99th percentile of the time between two documents finishing.
+     * @return The p99 per-document latency in milliseconds
+     */
+    long getLatencyP99() { return latencyP99; }
+
+    /**
+     * Creates the JSON summary of the run with its derived series, downsampled with
+     * Largest-Triangle-Three-Buckets so the report stays small for long runs.
+     * @param maxPoints The largest number of points of each series
+     * @return The summary as a JSON object
+     */
+    @SuppressWarnings("unchecked")
+    JSONObject toJson(int maxPoints) {
+        JSONObject json = new JSONObject();
+        json.put("name", name);
+        json.put("documents", numDocuments);
+        json.put("totalSeconds", totalMillis / MILLIS_PER_SECOND);
+        json.put("docsPerSecond", numDocuments * MILLIS_PER_SECOND /
+                Math.max(totalMillis, 1));
+        json.put("msPer1kDocs", getMillisPer1kDocs());
+        json.put("latencyP50Ms", latencyP50);
+        json.put("latencyP99Ms", latencyP99);
+        json.put("latencyMaxMs", latencyMax);
+        json.put("slopeChanges", slopeChanges);
+
+        JSONArray documents = new JSONArray();
+        JSONArray msPer1kDocs = new JSONArray();
+        JSONArray docsPerSecond = new JSONArray();
+        int[] kept = SeriesDownsampler.largestTriangleThreeBuckets(millisPerBucket,
+                Math.max(maxPoints, 3));
+        for (int bucket : kept) {
+            long millis = millisPerBucket[bucket];
+            documents.add(Math.min((long) (bucket + 1) * DOCS_PER_BUCKET, numDocuments));
+            msPer1kDocs.add(millis);
+            docsPerSecond.add(DOCS_PER_BUCKET * MILLIS_PER_SECOND / Math.max(millis, 1));
+        }
+        JSONObject series = new JSONObject();
+        series.put("document", documents);
+        series.put("msPer1kDocs", msPer1kDocs);
+        series.put("docsPerSecond", docsPerSecond);
+        json.put("series", series);
+        return json;
+    }
+}
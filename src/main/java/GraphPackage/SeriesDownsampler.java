@@ -0,0 +1,77 @@
+package GraphPackage;
+
+/**
+ * This class reduces a series of document times to a fixed number of points with the
+ * Largest-Triangle-Three-Buckets algorithm, so a chart of millions of documents costs
+ * the same to draw as a chart of a few thousand. The points between the first and the
+ * last are split into equal buckets, and from each bucket the point that forms the
+ * largest triangle with the point kept from the bucket before and the average of the
+ * bucket after is kept. Unlike taking every n-th point, this keeps the spikes and
+ * plateaus of the series, which are what the chart is read for.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class SeriesDownsampler {
+    private static final int MIN_POINTS = 3;
+
+    /**
+     * Chooses the points of a series to draw. The x value of each point is its index in
+     * the series, which is the document number less one for the document times.
+     * @param values The y values of the series
+     * @param maxPoints The largest number of points to keep, at least 3
+     * @return The indices of the kept points in increasing order, which are all the
+     *         indices if the series has no more than maxPoints points
+     */
+    public static int[] largestTriangleThreeBuckets(long[] values, int maxPoints) {
+        int numValues = values.length;
+        if (maxPoints < MIN_POINTS)
+            throw new RuntimeException("At least " + MIN_POINTS + " points must be kept.");
+        if (numValues <= maxPoints) {
+            int[] all = new int[numValues];
+            for (int i = 0; i < numValues; i++)
+                all[i] = i;
+            return all;
+        }
+
+        int[] kept = new int[maxPoints];
+        double bucketSize = (double) (numValues - 2) / (maxPoints - 2);
+        int previous = 0;
+        kept[0] = 0;
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+
+            //the average point of the next bucket, or the last point after the last bucket
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, numValues);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += i;
+                averageY += values[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            averageX /= nextCount;
+            averageY /= nextCount;
+
+            double previousX = previous;
+            double previousY = values[previous];
+            double largestArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((previousX - averageX) * (values[i] - previousY) -
+                        (previousX - i) * (averageY - previousY));
+                if (area > largestArea) {
+                    largestArea = area;
+                    chosen = i;
+                }
+            }
+            kept[bucket + 1] = chosen;
+            previous = chosen;
+        }
+        kept[maxPoints - 1] = numValues - 1;
+        return kept;
+    }
+}
@@ -0,0 +1,264 @@
+package GraphPackage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class writes a line chart of document times as an SVG file. JFreeChart 1.0.13
+ * can only draw onto a screen or an image, so the SVG is written directly from the
+ * downsampled points, with the same title, axes and legend as the chart window. It
+ * needs no display, so it runs on headless build servers.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class SvgChartWriter {
+    private static final String[] COLORS = {"#ff5555", "#5555ff", "#55aa55", "#ffaa00",
+            "#aa55aa", "#55aaaa", "#888888", "#aa5500"};
+    private static final int MARGIN_LEFT = 70;
+    private static final int MARGIN_RIGHT = 20;
+    private static final int MARGIN_TOP = 40;
+    private static final int MARGIN_BOTTOM = 80;
+    private static final int TARGET_TICKS = 8;
+    private static final int LEGEND_SPACING = 160;
+
+    private final String title;
+    private final String xLabel;
+    private final String yLabel;
+    private final List<String> names = new ArrayList<>();
+    private final List<double[]> xValues = new ArrayList<>();
+    private final List<double[]> yValues = new ArrayList<>();
+
+    /**
+     * Constructs the writer of an empty chart.
+     * @param title The title of the chart
+     * @param xLabel The label of the x axis
+     * @param yLabel The label of the y axis
+     */
+    SvgChartWriter(String title, String xLabel, String yLabel) {
+        this.title = title;
+        this.xLabel = xLabel;
+        this.yLabel = yLabel;
+    }
+
+    /**
+     * Adds a line to the chart.
+     * @param name The name of the line in the legend
+     * @param x The x values of the points of the line
+     * @param y The y values of the points of the line
+     */
+    void addSeries(String name, double[] x, double[] y) {
+        names.add(name);
+        xValues.add(x);
+        yValues.add(y);
+    }
+
+    /**
+     * Writes the chart to a file.
+     * @param file The SVG file to write
+     * @param width The width of the chart in pixels
+     * @param height The height of the chart in pixels
+     * @throws IOException
+     */
+    void write(File file, int width, int height) throws IOException {
+        double[] xRange = range(xValues);
+        double[] yRange = range(yValues);
+        double xStep = tickStep(xRange[1] - xRange[0]);
+        double yStep = tickStep(yRange[1] - yRange[0]);
+        xRange[1] = Math.ceil(xRange[1] / xStep) * xStep;
+        yRange[1] = Math.ceil(yRange[1] / yStep) * yStep;
+        Plot plot = new Plot(xRange, yRange, width, height);
+
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file.toPath(),
+                StandardCharsets.UTF_8))) {
+            out.printf(Locale.ROOT, "<svg xmlns=\"http://www.w3.org/2000/svg\" " +
+                    "width=\"%d\" height=\"%d\" font-family=\"sans-serif\" " +
+                    "font-size=\"11\">%n", width, height);
+            out.printf(Locale.ROOT, "<rect width=\"%d\" height=\"%d\" fill=\"white\"/>%n",
+                    width, height);
+            text(out, width / 2.0, 24, "middle", 16, title, false);
+
+            //grid lines and tick labels
+            for (double x = xRange[0]; x <= xRange[1] + xStep / 2; x += xStep) {
+                double px = plot.x(x);
+                line(out, px, plot.top, px, plot.bottom, "#e0e0e0");
+                text(out, px, plot.bottom + 14, "end", 11, format(x), true);
+            }
+            for (double y = yRange[0]; y <= yRange[1] + yStep / 2; y += yStep) {
+                double py = plot.y(y);
+                line(out, plot.left, py, plot.right, py, "#e0e0e0");
+                text(out, plot.left - 6, py + 4, "end", 11, format(y), false);
+            }
+            out.printf(Locale.ROOT, "<rect x=\"%d\" y=\"%d\" width=\"%d\" height=\"%d\" " +
+                    "fill=\"none\" stroke=\"#808080\"/>%n", plot.left, plot.top,
+                    plot.right - plot.left, plot.bottom - plot.top);
+            text(out, (plot.left + plot.right) / 2.0, height - 30, "middle", 12, xLabel,
+                    false);
+            out.printf(Locale.ROOT, "<text x=\"16\" y=\"%.1f\" text-anchor=\"middle\" " +
+                    "font-size=\"12\" transform=\"rotate(-90 16 %.1f)\">%s</text>%n",
+                    (plot.top + plot.bottom) / 2.0, (plot.top + plot.bottom) / 2.0,
+                    escape(yLabel));
+
+            //the lines and the legend
+            for (int s = 0; s < names.size(); s++) {
+                String color = COLORS[s % COLORS.length];
+                double[] x = xValues.get(s);
+                double[] y = yValues.get(s);
+                out.printf("<polyline fill=\"none\" stroke=\"%s\" stroke-width=\"1\" " +
+                        "points=\"", color);
+                for (int i = 0; i < x.length; i++)
+                    out.printf(Locale.ROOT, "%.1f,%.1f ", plot.x(x[i]), plot.y(y[i]));
+                out.println("\"/>");
+
+                double legendX = plot.left + s * LEGEND_SPACING;
+                line(out, legendX, height - 12, legendX + 20, height - 12, color);
+                text(out, legendX + 24, height - 8, "start", 11, names.get(s), false);
+            }
+            out.println("</svg>");
+        }
+    }
+
+    /**
+     * Finds the range of the values of every line, starting at 0.
+     * @param series The values of each line
+     * @return The lowest and highest value, with a highest of at least 1
+     */
+    private static double[] range(List<double[]> series) {
+        double min = 0;
+        double max = 1;
+        for (double[] values : series) {
+            for (double value : values) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        return new double[] {min, max};
+    }
+
+    /**
+     * Chooses a round distance between ticks of 1, 2 or 5 times a power of ten that
+     * gives about the target number of ticks.
+     * @param span The distance from the lowest to the highest value of the axis
+     * @return The distance between ticks
+     */
+    private static double tickStep(double span) {
+        double rough = span / TARGET_TICKS;
+        double power = Math.pow(10, Math.floor(Math.log10(rough)));
+        double fraction = rough / power;
+        if (fraction <= 1)
+            return power;
+        if (fraction <= 2)
+            return 2 * power;
+        if (fraction <= 5)
+            return 5 * power;
+        return 10 * power;
+    }
+
+    /**
+     * Formats a tick value without decimals when it is a whole number.
+     * @param value The tick value
+     * @return The label of the tick
+     */
+    private static String format(double value) {
+        if (value == Math.rint(value))
+            return String.format(Locale.ROOT, "%,d", (long) value);
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    /**
+     * Writes a line between two points.
+     * @param out The SVG file being written
+     * @param x1 The x of the start in pixels
+     * @param y1 The y of the start in pixels
+     * @param x2 The x of the end in pixels
+     * @param y2 The y of the end in pixels
+     * @param color The color of the line
+     */
+    private static void line(PrintWriter out, double x1, double y1, double x2, double y2,
+                             String color) {
+        out.printf(Locale.ROOT, "<line x1=\"%.1f\" y1=\"%.1f\" x2=\"%.1f\" y2=\"%.1f\" " +
+                "stroke=\"%s\"/>%n", x1, y1, x2, y2, color);
+    }
+
+    /**
+     * Writes a label.
+     * @param out The SVG file being written
+     * @param x The x of the anchor of the label in pixels
+     * @param y The y of the baseline of the label in pixels
+     * @param anchor Where the anchor is in the label: start, middle or end
+     * @param size The font size
+     * @param value The text of the label
+     * @param vertical True to turn the label to read upwards
+     */
+    private static void text(PrintWriter out, double x, double y, String anchor, int size,
+                             String value, boolean vertical) {
+        String rotation = vertical ? String.format(Locale.ROOT,
+                " transform=\"rotate(-90 %.1f %.1f)\"", x, y) : "";
+        out.printf(Locale.ROOT, "<text x=\"%.1f\" y=\"%.1f\" text-anchor=\"%s\" " +
+                "font-size=\"%d\"%s>%s</text>%n", x, y, anchor, size, rotation,
+                escape(value));
+    }
+
+    /**
+     * Escapes the characters of a text that have a meaning in XML.
+     * @param value The text
+     * @return The escaped text
+     */
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\"", "&quot;");
+    }
+
+    /**
+     * The area of the chart the lines are drawn in, which maps values to pixels.
+     */
+    private static class Plot {
+        private final double[] xRange;
+        private final double[] yRange;
+        private final int left;
+        private final int right;
+        private final int top;
+        private final int bottom;
+
+        /**
+         * Constructs the plot area inside the margins of the chart.
+         * @param xRange The lowest and highest x value
+         * @param yRange The lowest and highest y value
+         * @param width The width of the chart in pixels
+         * @param height The height of the chart in pixels
+         */
+        Plot(double[] xRange, double[] yRange, int width, int height) {
+            this.xRange = xRange;
+            this.yRange = yRange;
+            left = MARGIN_LEFT;
+            right = width - MARGIN_RIGHT;
+            top = MARGIN_TOP;
+            bottom = height - MARGIN_BOTTOM;
+        }
+
+        /**
+         * Maps an x value to its pixel.
+         * @param value The x value
+         * @return The x of the pixel
+         */
+        double x(double value) {
+            return left + (value - xRange[0]) / (xRange[1] - xRange[0]) * (right - left);
+        }
+
+        /**
+         * Maps a y value to its pixel, with higher values further up.
+         * @param value The y value
+         * @return The y of the pixel
+         */
+        double y(double value) {
+            return bottom - (value - yRange[0]) / (yRange[1] - yRange[0]) * (bottom - top);
+        }
+    }
+}
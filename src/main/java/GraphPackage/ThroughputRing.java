@@ -0,0 +1,113 @@
+package GraphPackage;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class carries the progress of a run from the indexing threads to the live
+ * dashboard through a fixed ring of slots, without locks. Any number of threads publish
+ * events, each claiming a slot with one compare-and-set on the head of the ring, and the
+ * single dashboard thread drains them in order. The indexing threads never wait: if the
+ * dashboard has fallen so far behind that the ring is full, the event is counted as
+ * dropped instead. The slots are plain arrays allocated once, so publishing creates no
+ * garbage on the hot path.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class ThroughputRing {
+    /** Documents added to the index; the amount is their bytes of data. */
+    public static final int DOCUMENTS = 0;
+    /** A segment flushed by the writer; the amount is the milliseconds it took. */
+    public static final int FLUSH = 1;
+    /** A merge finished by the writer; the amount is the milliseconds it took. */
+    public static final int MERGE = 2;
+    public static final int NUM_KINDS = 3;
+    private static final int DEFAULT_CAPACITY = 1 << 14;
+
+    private final int mask;
+    private final int[] kinds;
+    private final long[] counts;
+    private final long[] amounts;
+    private final AtomicLongArray published;
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Constructs a ring with the default number of slots.
+     */
+    public ThroughputRing() { this(DEFAULT_CAPACITY); }
+
+    /**
+     * Constructs a ring.
+     * @param capacity The number of slots, which must be a power of two
+     */
+    public ThroughputRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new RuntimeException("The ring capacity must be a power of two.");
+        mask = capacity - 1;
+        kinds = new int[capacity];
+        counts = new long[capacity];
+        amounts = new long[capacity];
+        published = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * Publishes an event from any thread. The slot is claimed first, then filled, and
+     * then marked with its sequence number, so the reader only sees whole events.
+     * @param kind The kind of event: DOCUMENTS, FLUSH or MERGE
+     * @param count The number of things that happened, such as documents added
+     * @param amount The size of the event, such as bytes or milliseconds
+     * @return True if the event was published; false if the ring was full.
+     */
+    public boolean publish(int kind, long count, long amount) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail >= kinds.length) {
+                dropped.increment();
+                return false;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) sequence & mask;
+        kinds[slot] = kind;
+        counts[slot] = count;
+        amounts[slot] = amount;
+        published.lazySet(slot, sequence + 1);
+        return true;
+    }
+
+    /**
+     * Drains every event published so far into totals per kind of event. Only one
+     * thread may drain the ring. A slot that has been claimed but not yet filled stops
+     * the drain, and its event is picked up by the next one.
+     * @param countTotals The totals of the counts, indexed by kind, which are added to
+     * @param amountTotals The totals of the amounts, indexed by kind, which are added to
+     * @return The number of events drained
+     */
+    public int drainInto(long[] countTotals, long[] amountTotals) {
+        long sequence = tail;
+        int numEvents = 0;
+        while (true) {
+            int slot = (int) sequence & mask;
+            if (published.get(slot) != sequence + 1)
+                break;
+            countTotals[kinds[slot]] += counts[slot];
+            amountTotals[kinds[slot]] += amounts[slot];
+            sequence++;
+            numEvents++;
+        }
+        tail = sequence;
+        return numEvents;
+    }
+
+    /**
+     * Retrieves the number of events that were dropped because the ring was full.
+     * @return The number of dropped events
+     */
+    public long getDropped() { return dropped.sum(); }
+}
@@ -0,0 +1,118 @@
+package IndexPackage;
+
+import org.apache.lucene.index.IndexWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class commits the index at regular intervals during a long run. Each commit
+ * records in its user data the data file and the byte offset that every line before
+ * it has been indexed up to, so a run that dies partway through can be resumed from
+ * the last commit instead of starting over. The final commit of a run is marked as
+ * complete, meaning there is nothing left to resume.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class Checkpointer {
+    static final String FILE_KEY = "checkpoint.file";
+    static final String OFFSET_KEY = "checkpoint.offset";
+    static final String COMPLETE_KEY = "checkpoint.complete";
+    private final IndexWriter writer;
+    private final IndexingMetrics metrics;
+    private final long intervalMillis;
+    private long lastCheckpoint;
+    private String resumeFile;
+    private long resumeOffset;
+    private boolean resumeComplete;
+
+    /**
+     * Constructs the checkpointer and reads the checkpoint of the last commit.
+     * @param writer The writer to commit
+     * @param intervalSeconds The seconds between commits, or 0 for no commits
+     * @param metrics The metrics that the commit times are recorded in
+     */
+    Checkpointer(IndexWriter writer, int intervalSeconds, IndexingMetrics metrics) {
+        this.writer = writer;
+        this.metrics = metrics;
+        this.intervalMillis = intervalSeconds * 1000L;
+        lastCheckpoint = System.currentTimeMillis();
+
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData == null)
+            return;
+        for (Map.Entry<String, String> entry : commitData) {
+            if (entry.getKey().equals(FILE_KEY))
+                resumeFile = entry.getValue();
+            else if (entry.getKey().equals(OFFSET_KEY))
+                resumeOffset = Long.parseLong(entry.getValue());
+            else if (entry.getKey().equals(COMPLETE_KEY))
+                resumeComplete = Boolean.parseBoolean(entry.getValue());
+        }
+    }
+
+    /**
+     * Checks if it is time for the next checkpoint.
+     * @return True if a commit should be made; false otherwise.
+     */
+    boolean isDue() {
+        return intervalMillis > 0 &&
+                System.currentTimeMillis() - lastCheckpoint >= intervalMillis;
+    }
+
+    /**
+     * Commits the index with the given position as the point to resume from. Every
+     * line before the position must already be added to the writer.
+     * @param file The data file being indexed
+     * @param offset The byte offset in the file that all lines before are indexed
+     * @throws IOException
+     */
+    void checkpoint(File file, long offset) throws IOException {
+        Map<String, String> commitData = new HashMap<>();
+        commitData.put(FILE_KEY, file.getName());
+        commitData.put(OFFSET_KEY, Long.toString(offset));
+        commitData.put(COMPLETE_KEY, "false");
+        writer.setLiveCommitData(commitData.entrySet());
+        long start = System.nanoTime();
+        writer.commit();
+        metrics.record(IndexingMetrics.Stage.COMMIT, start);
+        lastCheckpoint = System.currentTimeMillis();
+        System.out.println("Checkpoint: indexed up to byte " + offset + " of " +
+                file.getName());
+    }
+
+    /** Marks the next commit, made when the writer closes, as the end of the run. */
+    void markComplete() {
+        Map<String, String> commitData = new HashMap<>();
+        commitData.put(COMPLETE_KEY, "true");
+        writer.setLiveCommitData(commitData.entrySet());
+    }
+
+    /**
+     * Checks if the last commit has a checkpoint to resume from.
+     * @return True if the last run stopped before finishing; false otherwise.
+     */
+    boolean canResume() { return resumeFile != null && !resumeComplete; }
+
+    /**
+     * Checks if the last commit was made at the end of a finished run.
+     * @return True if the last run finished; false otherwise.
+     */
+    boolean isLastRunComplete() { return resumeComplete; }
+
+    /**
+     * Retrieves the name of the data file of the last checkpoint.
+     * @return The file name to resume from
+     */
+    String getResumeFile() { return resumeFile; }
+
+    /**
+     * Retrieves the byte offset of the last checkpoint in its data file.
+     * @return The offset to resume from
+     */
+    long getResumeOffset() { return resumeOffset; }
+}
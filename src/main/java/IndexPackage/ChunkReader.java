@@ -0,0 +1,30 @@
+package IndexPackage;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * This interface reads a .data file as chunks of whole lines, whether the file is plain
+ * or compressed, so the indexer and its pipeline can read every file the same way. The
+ * position of a reader is a byte offset in the uncompressed lines of the file, which is
+ * what checkpoints record and what a resumed run starts from.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+interface ChunkReader extends Closeable {
+    /**
+     * Reads the next chunk of whole lines from the file.
+     * @return The chunk of lines, or null once the whole file has been read
+     * @throws IOException
+     */
+    DataChunk nextChunk() throws IOException;
+
+    /**
+     * Retrieves the byte offset in the uncompressed file after the last chunk that was
+     * read.
+     * @return The offset of the next chunk
+     */
+    long getPosition();
+}
@@ -0,0 +1,238 @@
+package IndexPackage;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class reads a compressed .data file as chunks of whole lines. The file is
+ * decompressed on a thread of its own, which stays a few chunks ahead of the indexer,
+ * so decompressing overlaps with parsing and analysing the lines instead of adding to
+ * it, and the uncompressed lines never touch the disk. Each chunk is copied onto the
+ * heap since a compressed file cannot be memory-mapped as lines. Offsets are counted
+ * in the uncompressed lines, so a checkpoint in a compressed file is resumed by
+ * decompressing up to it again.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class CompressedChunkReader implements ChunkReader {
+    private static final int CHUNKS_AHEAD = 4;
+    private static final int FILE_BUFFER_SIZE = 256 * 1024;
+    private static final int OFFER_TIMEOUT_MILLIS = 100;
+    private static final DataChunk END_OF_FILE = new DataChunk(null, 0,
+            ByteBuffer.allocate(0));
+    private final File file;
+    private final DataFormat format;
+    private final int chunkSize;
+    private final InputStream in;
+    private final BlockingQueue<DataChunk> chunks = new ArrayBlockingQueue<>(CHUNKS_AHEAD);
+    private final Thread decompressor;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+    private long position;
+    private boolean finished;
+
+    /**
+     * Opens the file and starts decompressing it.
+     * @param file The compressed .data file to read
+     * @param format The compression format of the file
+     * @param chunkSize The number of bytes to aim for in each chunk
+     * @param startOffset The byte offset in the uncompressed file to start reading at,
+     *                    which must be the start of a line
+     * @throws IOException
+     */
+    CompressedChunkReader(File file, DataFormat format, int chunkSize, long startOffset)
+            throws IOException {
+        this.file = file;
+        this.format = format;
+        this.chunkSize = chunkSize;
+        position = startOffset;
+        InputStream raw = new BufferedInputStream(new FileInputStream(file),
+                FILE_BUFFER_SIZE);
+        try {
+            in = format.decompress(raw);
+        } catch (IOException | RuntimeException e) {
+            raw.close();
+            throw e;
+        }
+        decompressor = new Thread(() -> decompress(startOffset),
+                "decompress-" + file.getName());
+        decompressor.setDaemon(true);
+        decompressor.start();
+    }
+
+    /**
+     * The decompressing thread. Skips to the start offset, then cuts the uncompressed
+     * bytes into chunks that end on a line break and puts them on the queue until the
+     * end of the file. A line longer than the chunk size is put as a single larger
+     * chunk.
+     * @param startOffset The byte offset in the uncompressed file to start at
+     */
+    private void decompress(long startOffset) {
+        try {
+            skipFully(startOffset);
+            long offset = startOffset;
+            byte[] buffer = new byte[chunkSize];
+            int length = 0;
+            int searchFrom = 0;
+            while (true) {
+                int numRead = in.read(buffer, length, buffer.length - length);
+                if (numRead < 0)
+                    break;
+                length += numRead;
+                if (length < buffer.length)
+                    continue;
+
+                int lineEnd = lastLineBreak(buffer, searchFrom, length) + 1;
+                if (lineEnd == 0) {
+                    //no line break in the buffer, so the line is longer than a chunk
+                    searchFrom = length;
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+                byte[] next = new byte[Math.max(chunkSize, (length - lineEnd) * 2)];
+                System.arraycopy(buffer, lineEnd, next, 0, length - lineEnd);
+                if (!putChunk(new DataChunk(file, offset, ByteBuffer.wrap(buffer, 0,
+                        lineEnd).slice())))
+                    return;
+                offset += lineEnd;
+                length -= lineEnd;
+                buffer = next;
+                searchFrom = 0;
+            }
+            if (length > 0 && !putChunk(new DataChunk(file, offset,
+                    ByteBuffer.wrap(buffer, 0, length).slice())))
+                return;
+        } catch (InterruptedException e) {
+            return; //the reader was closed
+        } catch (IOException | RuntimeException | LinkageError e) {
+            failure = e;
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                if (failure == null)
+                    failure = e;
+            }
+        }
+
+        try {
+            putChunk(END_OF_FILE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Puts a chunk on the queue, waiting while the queue is full until the reader takes
+     * a chunk or is closed. The wait is in short steps so the thread sees the reader
+     * being closed even if the interrupt came before it started waiting.
+     * @param chunk The chunk to put on the queue
+     * @return True if the chunk was put; false if the reader was closed.
+     * @throws InterruptedException
+     */
+    private boolean putChunk(DataChunk chunk) throws InterruptedException {
+        while (!closed) {
+            if (chunks.offer(chunk, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Decompresses and discards the bytes before the start offset.
+     * @param numBytes The number of uncompressed bytes to skip
+     * @throws IOException
+     */
+    private void skipFully(long numBytes) throws IOException {
+        while (numBytes > 0) {
+            long skipped = in.skip(numBytes);
+            if (skipped <= 0) {
+                if (in.read() < 0)
+                    throw new EOFException("The checkpoint offset is past the end of " +
+                            file.getName());
+                skipped = 1;
+            }
+            numBytes -= skipped;
+        }
+    }
+
+    /**
+     * Takes the next chunk the decompressing thread has put on the queue, waiting for
+     * it if the thread has fallen behind.
+     * @return The chunk of lines, or null once the whole file has been read
+     * @throws IOException
+     */
+    @Override
+    public DataChunk nextChunk() throws IOException {
+        if (finished)
+            return null;
+        DataChunk chunk;
+        try {
+            chunk = chunks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Decompressing " + file.getName() +
+                    " was interrupted");
+        }
+        if (chunk == END_OF_FILE) {
+            finished = true;
+            if (failure != null)
+                throw new IOException("Could not decompress the " + format.getName() +
+                        " file " + file.getName(), failure);
+            return null;
+        }
+        position = chunk.getOffset() + chunk.getBytes().remaining();
+        return chunk;
+    }
+
+    /**
+     * Retrieves the byte offset in the uncompressed file after the last chunk that was
+     * read.
+     * @return The offset of the next chunk
+     */
+    @Override
+    public long getPosition() { return position; }
+
+    /**
+     * Finds the last line break in part of a buffer.
+     * @param buffer The buffer of uncompressed bytes
+     * @param from The index to search down to
+     * @param to The index after the last byte to search
+     * @return The index of the last line break, or -1 if there is none
+     */
+    private static int lastLineBreak(byte[] buffer, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (buffer[i] == '\n')
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Stops the decompressing thread and waits for it to close the file. Chunks that
+     * were already read remain valid.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        decompressor.interrupt();
+        chunks.clear();
+        try {
+            decompressor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
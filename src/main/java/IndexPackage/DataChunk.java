@@ -0,0 +1,49 @@
+package IndexPackage;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * This class is a chunk of whole lines read from a .data file, along with the file it
+ * came from and where in the file it starts, so a line can be traced back to its file
+ * from any indexing thread.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class DataChunk {
+    private final File file;
+    private final long offset;
+    private final ByteBuffer bytes;
+
+    /**
+     * Constructs the chunk.
+     * @param file The data file the chunk was read from
+     * @param offset The byte offset of the start of the chunk in the file
+     * @param bytes The bytes of the lines in the chunk
+     */
+    DataChunk(File file, long offset, ByteBuffer bytes) {
+        this.file = file;
+        this.offset = offset;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Retrieves the data file the chunk was read from.
+     * @return The data file
+     */
+    File getFile() { return file; }
+
+    /**
+     * Retrieves the byte offset of the start of the chunk in its file.
+     * @return The offset of the chunk
+     */
+    long getOffset() { return offset; }
+
+    /**
+     * Retrieves the bytes of the lines in the chunk.
+     * @return The bytes of the chunk
+     */
+    ByteBuffer getBytes() { return bytes; }
+}
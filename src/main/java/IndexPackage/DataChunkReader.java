@@ -0,0 +1,106 @@
+package IndexPackage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads a .data file as chunks of raw bytes that are memory-mapped from the
+ * file instead of being copied onto the heap. Every chunk ends on a line break, so each
+ * chunk holds only whole lines and can be parsed on its own by any thread, which lets a
+ * single large file be spread over all the indexing threads. The file is mapped one
+ * chunk at a time, so files larger than 2 GB can be read even though a single mapping
+ * cannot be. A line longer than the chunk size is returned as a single larger chunk.
+ * Compressed files are read by the CompressedChunkReader instead.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.1
+ *  @since Mar 03, 2020
+ */
+class DataChunkReader implements ChunkReader {
+    private final File file;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int chunkSize;
+    private long position;
+
+    /**
+     * Opens the reader for the given file, starting at the given offset so that a run
+     * can be resumed partway through the file.
+     * @param file The .data file to read
+     * @param chunkSize The number of bytes to aim for in each chunk
+     * @param startOffset The byte offset to start reading at, which must be the start
+     *                    of a line
+     * @throws IOException
+     */
+    DataChunkReader(File file, int chunkSize, long startOffset) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        fileSize = channel.size();
+        this.chunkSize = chunkSize;
+        position = startOffset;
+    }
+
+    /**
+     * Maps the next chunk of whole lines from the file. The chunk stays readable after
+     * the reader is closed.
+     * @return The chunk of lines, or null once the whole file has been read
+     * @throws IOException
+     */
+    @Override
+    public DataChunk nextChunk() throws IOException {
+        if (position >= fileSize)
+            return null;
+
+        long regionSize = chunkSize;
+        while (true) {
+            long remaining = fileSize - position;
+            int length = (int) Math.min(regionSize, Math.min(remaining, Integer.MAX_VALUE));
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY,
+                    position, length);
+
+            int chunkLength = (length == remaining) ? length : lastLineBreak(region) + 1;
+            if (chunkLength > 0) {
+                region.limit(chunkLength);
+                DataChunk chunk = new DataChunk(file, position, region.slice());
+                position += chunkLength;
+                return chunk;
+            }
+            if (length == Integer.MAX_VALUE)
+                throw new IOException("A line in the data file is longer than 2 GB");
+
+            //no line break in the region, so the line is longer than a chunk
+            regionSize *= 2;
+        }
+    }
+
+    /**
+     * Retrieves the byte offset in the file after the last chunk that was read.
+     * @return The offset of the next chunk
+     */
+    @Override
+    public long getPosition() { return position; }
+
+    /**
+     * Finds the last line break in a mapped region.
+     * @param region The mapped region of the file
+     * @return The index of the last line break, or -1 if there is none
+     */
+    private static int lastLineBreak(ByteBuffer region) {
+        for (int i = region.limit() - 1; i >= 0; i--) {
+            if (region.get(i) == '\n')
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Closes the file. Chunks that were already mapped remain valid.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException { channel.close(); }
+}
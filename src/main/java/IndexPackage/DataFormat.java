@@ -0,0 +1,126 @@
+package IndexPackage;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.tukaani.xz.XZInputStream;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * This enum holds the formats a .data file can be stored in. The format of a file is
+ * found from the magic bytes at its start rather than from its name, so a data folder
+ * can mix plain files with files compressed by gzip, zstd or xz, under any names. Plain
+ * files are memory-mapped as before; compressed files are streamed through a decoder.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+enum DataFormat {
+    PLAIN("plain"),
+    GZIP("gzip", 0x1f, 0x8b),
+    ZSTD("zstd", 0x28, 0xb5, 0x2f, 0xfd),
+    XZ("xz", 0xfd, '7', 'z', 'X', 'Z', 0x00);
+
+    private static final int MAX_MAGIC_LENGTH = 6;
+    private static final int DECODER_BUFFER_SIZE = 64 * 1024;
+    private final String name;
+    private final int[] magic;
+
+    /**
+     * Constructs a format.
+     * @param name The name of the format in messages
+     * @param magic The bytes every file of the format starts with
+     */
+    DataFormat(String name, int... magic) {
+        this.name = name;
+        this.magic = magic;
+    }
+
+    /**
+     * Finds the format of a file from its first bytes. A file that starts with none of
+     * the magic bytes is taken to be plain lines.
+     * @param file The data file
+     * @return The format of the file
+     * @throws IOException
+     */
+    static DataFormat detect(File file) throws IOException {
+        byte[] start = new byte[MAX_MAGIC_LENGTH];
+        int length = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            int numRead;
+            while (length < start.length &&
+                    (numRead = in.read(start, length, start.length - length)) > 0)
+                length += numRead;
+        }
+
+        for (DataFormat format : values()) {
+            if (format != PLAIN && format.matches(start, length))
+                return format;
+        }
+        return PLAIN;
+    }
+
+    /**
+     * Opens a reader of the chunks of a data file in its format.
+     * @param file The data file
+     * @param chunkSize The number of bytes to aim for in each chunk
+     * @param startOffset The byte offset in the uncompressed file to start reading at,
+     *                    which must be the start of a line
+     * @return The reader of the file
+     * @throws IOException
+     */
+    static ChunkReader openReader(File file, int chunkSize, long startOffset)
+            throws IOException {
+        DataFormat format = detect(file);
+        if (format == PLAIN)
+            return new DataChunkReader(file, chunkSize, startOffset);
+        return new CompressedChunkReader(file, format, chunkSize, startOffset);
+    }
+
+    /**
+     * Checks if the start of a file holds the magic bytes of this format.
+     * @param start The first bytes of the file
+     * @param length The number of bytes read into start
+     * @return True if the file is in this format; false otherwise.
+     */
+    private boolean matches(byte[] start, int length) {
+        if (length < magic.length)
+            return false;
+        for (int i = 0; i < magic.length; i++) {
+            if ((start[i] & 0xFF) != magic[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Wraps the raw bytes of a file in the decoder of this format. Files made of several
+     * concatenated compressed streams, as written by pigz or by appending, are decoded
+     * as one.
+     * @param in The compressed bytes of the file
+     * @return The uncompressed bytes of the file
+     * @throws IOException
+     */
+    InputStream decompress(InputStream in) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPInputStream(in, DECODER_BUFFER_SIZE);
+            case ZSTD:
+                return new ZstdInputStream(in);
+            case XZ:
+                return new XZInputStream(in);
+            default:
+                return in;
+        }
+    }
+
+    /**
+     * Retrieves the name of the format.
+     * @return The name of the format
+     */
+    String getName() { return name; }
+}
@@ -1,19 +1,24 @@
 package IndexPackage;
 
+import GraphPackage.DocTimeSeriesReader;
 import GraphPackage.IndexTimeGrapher;
+import GraphPackage.LiveThroughputDashboard;
+import GraphPackage.ThroughputRing;
 import org.jfree.ui.RefineryUtilities;
 import org.json.simple.parser.ParseException;
 
+import javax.swing.SwingUtilities;
+import java.awt.GraphicsEnvironment;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 
 /**
  * This class is to run and test the Lucene Indexer. It creates a line graph displaying
  * the completion times for each of the documents it indexes from a given set of data
- * files. The graph is from JFreeChart.
+ * files. The graph is from JFreeChart, and is either shown in a window or saved as a
+ * PNG or SVG file on machines without a display.
  *
  *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
  *  @version 1.1
@@ -32,13 +37,16 @@ public class IndexBuilder {
 
     /**
      * Runs the program with either no given inputs (default input directory) or the
-     * path to the directory for the data files.
+     * path to the directory for the data files. Indexer options in the form
+     * --name=value may be given before or after the directory, e.g. --threads=8.
      * @param args Only accepts no inputs (default directory) or 1 input (given directory)
+     *             besides the indexer options
      * @throws IOException
      * @throws ParseException
      */
     public static void main(String[] args) throws IOException, ParseException {
-        ArrayList<Long> indexingRuntimes;
+        IndexerSettings settings = IndexerSettings.parse(args);
+        args = removeOptions(args);
         if (args.length > 1)
             throw new RuntimeException("Only accepts at most one input for the directory "
                     + "of the data files for indexing. The indexer only uses standard " +
@@ -50,7 +58,7 @@ public class IndexBuilder {
                         "folder or specify the directory to the files requiring " +
                         "indexing.");
             }
-            indexingRuntimes = runIndexer();
+            runIndexer(DEFAULT_DATA_FILE_LIST, settings);
         }
         else {
             File dataDir = new File(args[0]);
@@ -59,26 +67,54 @@ public class IndexBuilder {
                 throw new FileNotFoundException("Directory " + args[0] + " is invalid. " +
                         "Verify that the input is the full directory.");
             }
-            indexingRuntimes = runIndexer(dataDir.listFiles());
+            runIndexer(dataDir.listFiles(), settings);
         }
-        if (!(indexingRuntimes == null))
-            saveDocTimes(indexingRuntimes);
-        createIndexerRuntimeGraph();
+        File timesFile = new File(settings.getTimesPath());
+        if (settings.isExportTimesText() && timesFile.exists())
+            saveDocTimes(timesFile);
+        createIndexerRuntimeGraph(timesFile.exists() ? timesFile :
+                new File(LUCENE_TIME_FILENAME), settings);
     }
 
     /**
      * Creates a graph displaying the completion times for indexing all the documents
      * with a given input list of runtimes. The file to create the graph was already
-     * generated from a different part of the code.
+     * generated from a different part of the code. A window is built on the Swing event
+     * thread so the run is not held up by it; without a display, the graph is saved as
+     * a PNG file instead.
+     * @param timesFile The file of document times, binary or text
+     * @param settings The settings with the graph output and its number of points
+     * @throws IOException
      */
-    private static void createIndexerRuntimeGraph()
-            throws FileNotFoundException {
-
-        IndexTimeGrapher chart = new IndexTimeGrapher(APP_TITLE, GRAPH_TITLE,
-                new File(LUCENE_TIME_FILENAME), LINE_TITLE);
-        chart.pack( );
-        RefineryUtilities.centerFrameOnScreen( chart );
-        chart.setVisible( true );
+    private static void createIndexerRuntimeGraph(File timesFile, IndexerSettings settings)
+            throws IOException {
+        if (settings.getGraph().equals(IndexerSettings.GRAPH_NONE))
+            return;
+        if (settings.getGraph().equals(IndexerSettings.GRAPH_WINDOW) &&
+                GraphicsEnvironment.isHeadless()) {
+            System.out.println("No display was found, so the graph is saved as a file.");
+            settings.setGraph(IndexerSettings.GRAPH_PNG);
+        }
+        if (!settings.getGraph().equals(IndexerSettings.GRAPH_WINDOW)) {
+            System.setProperty("java.awt.headless", "true");
+            IndexTimeGrapher.saveChart(new File(settings.getGraphPath()), GRAPH_TITLE,
+                    new File[] {timesFile}, new String[] {LINE_TITLE},
+                    settings.getGraphPoints());
+            return;
+        }
+
+        SwingUtilities.invokeLater(() -> {
+            try {
+                IndexTimeGrapher chart = new IndexTimeGrapher(APP_TITLE, GRAPH_TITLE,
+                        timesFile, LINE_TITLE, settings.getGraphPoints());
+                chart.pack( );
+                RefineryUtilities.centerFrameOnScreen( chart );
+                chart.setVisible( true );
+            } catch (IOException e) {
+                System.out.println("Error with reading the document times for the graph");
+                e.printStackTrace();
+            }
+        });
     }
 
     /**
@@ -91,11 +127,11 @@ public class IndexBuilder {
     /**
      * Runs the Lucene indexer using the default directory for the data files to be
      * indexed. Runtime is recorded for each document in the file that are indexed.
-     * @return The amount of time it takes to index each document.
+     * @return The number of documents indexed
      * @throws IOException
      * @throws ParseException
      */
-    public static ArrayList<Long> runIndexer() throws IOException, ParseException {
+    public static long runIndexer() throws IOException, ParseException {
         return runIndexer(DEFAULT_DATA_FILE_LIST);
     }
 
@@ -103,30 +139,110 @@ public class IndexBuilder {
      * Runs the Lucene indexer with a given list of files to index. Runtime is recorded
      * for each document in the file that are indexed.
      * @param fileList Directory to the files to index
-     * @return The amount of time it takes to index each document.
+     * @return The number of documents indexed
      * @throws IOException
      * @throws ParseException
      */
-    public static ArrayList<Long> runIndexer(File[] fileList) throws IOException,
+    public static long runIndexer(File[] fileList) throws IOException,
             ParseException {
+        return runIndexer(fileList, new IndexerSettings());
+    }
+
+    /**
+     * Runs the Lucene indexer with a given list of files to index and the options for
+     * the run. Runtime is recorded for each document in the file that are indexed, and
+     * written to the document times file of the settings as the run goes.
+     * @param fileList Directory to the files to index
+     * @param settings The options for the indexer, such as the number of threads
+     * @return The number of documents indexed
+     * @throws IOException
+     * @throws ParseException
+     */
+    public static long runIndexer(File[] fileList, IndexerSettings settings)
+            throws IOException, ParseException {
         if (isEmptyDirectory(fileList)) {
             System.out.println("Data folder is empty. No files were indexed");
-            return null;
+            return 0;
         }
 
-        System.out.println("Starting Index. Please wait.");
-        Indexer indexer = new Indexer(fileList, INDEX_DIR);
+        System.out.println("Starting Index with " + settings.getNumThreads() +
+                " thread(s) and the " + settings.getProfile() + " write profile. " +
+                "Please wait.");
+        LiveThroughputDashboard dashboard = null;
+        if (settings.isLive()) {
+            ThroughputRing liveFeed = new ThroughputRing();
+            settings.setLiveFeed(liveFeed);
+            dashboard = new LiveThroughputDashboard(liveFeed, settings.getLiveInterval(),
+                    settings.getLiveWindow());
+            dashboard.start();
+        }
+        final long startTime = System.currentTimeMillis();
+        long numDocuments;
+        long numBytes;
+        try {
+            if (settings.getNumShards() > 1) {
+                ShardedIndexBuilder builder = new ShardedIndexBuilder(INDEX_DIR, settings);
+                numDocuments = builder.build(fileList);
+                numBytes = builder.getNumBytes();
+            }
+            else {
+                Indexer indexer = new Indexer(fileList, INDEX_DIR, settings);
+                numDocuments = indexer.getNumDocuments();
+                numBytes = indexer.getMetrics().getBytes();
+            }
+        } finally {
+            if (dashboard != null)
+                dashboard.stop();
+        }
+        reportThroughput(settings.getProfile(), numDocuments, numBytes,
+                System.currentTimeMillis() - startTime);
         System.out.println("Indexing complete. Index files are saved in the directory: "
                 + CURRENT_DIR + "\\" + INDEX_DIR);
-        return indexer.getDocTimes();
+        if (settings.isBuildSuggester())
+            new SuggesterBuilder(settings.getSuggestMinDocFreq()).build(INDEX_DIR);
+        return numDocuments;
     }
 
-    public static void saveDocTimes(ArrayList<Long> timeList) throws FileNotFoundException {
-        PrintWriter writer = new PrintWriter(new File(LUCENE_TIME_FILENAME));
-        for (Long time : timeList) {
-            writer.println(time);
+    /**
+     * Prints the throughput of the run for the write profile that was used, so that
+     * runs with different profiles can be compared.
+     * @param profile The write profile of the run
+     * @param numDocuments The number of documents that were indexed
+     * @param totalBytes The bytes of data read, the same as in the metrics file
+     * @param elapsedMillis The time the run took, including merging and closing
+     */
+    private static void reportThroughput(WriteProfile profile, long numDocuments,
+                                         long totalBytes, long elapsedMillis) {
+        double seconds = Math.max(elapsedMillis, 1) / 1000.0;
+        double megabytes = totalBytes / (1024.0 * 1024.0);
+        System.out.println(String.format("Profile %s: %d documents, %.1f MB in %.1f s " +
+                "(%.0f docs/sec, %.2f MB/sec)", profile, numDocuments, megabytes, seconds,
+                numDocuments / seconds, megabytes / seconds));
+    }
+
+    /**
+     * Exports the document times of a run as text, one time per line, for tools that
+     * read the older format.
+     * @param timesFile The binary document times file of the run
+     * @throws IOException
+     */
+    public static void saveDocTimes(File timesFile) throws IOException {
+        DocTimeSeriesReader.exportText(timesFile, new File(LUCENE_TIME_FILENAME));
+    }
+
+    /**
+     * Removes the indexer options from the command line arguments so only the data
+     * directory, if any, is left.
+     * @param args The command line arguments
+     * @return The arguments that are not indexer options
+     */
+    private static String[] removeOptions(String[] args) {
+        ArrayList<String> remaining = new ArrayList<>();
+        for (String arg : args) {
+            if (!IndexerSettings.isOption(arg))
+                remaining.add(arg);
         }
-        writer.close();
+        return remaining.toArray(new String[0]);
     }
 
     /**
@@ -0,0 +1,107 @@
+package IndexPackage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class keeps track of the .data files that are already in the index so that an
+ * incremental run only reads files that are new or have changed since the last run. A
+ * file is identified by its path and is considered changed when its size or last
+ * modified time differs. The manifest is a small text file saved in the index
+ * directory with one file per line.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class IndexManifest {
+    static final String MANIFEST_FILENAME = "indexed_files.manifest";
+    private static final String SEPARATOR = "\t";
+    private final Path manifestPath;
+    private final Map<String, String> entries = new HashMap<>();
+
+    /**
+     * Loads the manifest from the index directory, if the directory has one.
+     * @param indexDirectoryPath The directory path of the index files
+     * @throws IOException
+     */
+    IndexManifest(String indexDirectoryPath) throws IOException {
+        manifestPath = new File(indexDirectoryPath, MANIFEST_FILENAME).toPath();
+        if (!Files.exists(manifestPath))
+            return;
+        for (String line : Files.readAllLines(manifestPath, StandardCharsets.UTF_8)) {
+            int split = line.indexOf(SEPARATOR);
+            if (split > 0)
+                entries.put(line.substring(0, split), line.substring(split + 1));
+        }
+    }
+
+    /**
+     * Filters a list of files down to the ones that are new or changed since the
+     * files were last recorded.
+     * @param fileList The list of files to check
+     * @return The files that need to be indexed
+     * @throws IOException
+     */
+    File[] changedFiles(File[] fileList) throws IOException {
+        List<File> changed = new ArrayList<>();
+        for (File file : fileList) {
+            if (!describe(file).equals(entries.get(key(file))))
+                changed.add(file);
+        }
+        return changed.toArray(new File[0]);
+    }
+
+    /**
+     * Records the current state of the given files as indexed.
+     * @param fileList The files that were indexed
+     * @throws IOException
+     */
+    void record(File[] fileList) throws IOException {
+        for (File file : fileList)
+            entries.put(key(file), describe(file));
+    }
+
+    /**
+     * Saves the manifest to the index directory. The file is written under a temporary
+     * name first so a failed run never leaves a partial manifest behind.
+     * @throws IOException
+     */
+    void save() throws IOException {
+        Path tempPath = manifestPath.resolveSibling(MANIFEST_FILENAME + ".tmp");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(tempPath,
+                StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, String> entry : entries.entrySet())
+                writer.println(entry.getKey() + SEPARATOR + entry.getValue());
+        }
+        Files.move(tempPath, manifestPath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Retrieves the key a file is stored under in the manifest.
+     * @param file The data file
+     * @return The canonical path of the file
+     * @throws IOException
+     */
+    private static String key(File file) throws IOException {
+        return file.getCanonicalPath();
+    }
+
+    /**
+     * Describes the current state of a file to detect changes between runs.
+     * @param file The data file
+     * @return The size and last modified time of the file
+     */
+    private static String describe(File file) {
+        return file.length() + SEPARATOR + file.lastModified();
+    }
+}
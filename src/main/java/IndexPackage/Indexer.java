@@ -1,26 +1,26 @@
 package IndexPackage;
 
+import GraphPackage.DocTimeSeriesWriter;
 import org.apache.lucene.analysis.CharArraySet;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.document.Field;
-import org.apache.lucene.document.StringField;
-import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This class is for the Lucene indexer, which takes a list of .data files from our
@@ -44,7 +44,22 @@ public class Indexer {
             "by", "for", "if", "in", "into", "is", "it", "no", "not", "of", "on", "or",
             "such", "that", "the", "their", "then", "there", "these", "they", "this",
             "to", "was", "will", "with"};
-    private ArrayList<Long> docTimes;
+    private final String HASH_FIELD = "hash";
+    private static final int BATCH_SIZE = 64;
+    private DocTimeSeriesWriter docTimes;
+    private IndexerSettings settings;
+    private WebsiteDocumentBuilder documentBuilder;
+    private IndexManifest manifest;
+    private PageHashLookup previousPages;
+    private Checkpointer checkpointer;
+    private QuarantineFile quarantine;
+    private File resumeFile;
+    private long resumeOffset;
+    private IndexingMetrics metrics;
+    private NearDuplicateDetector nearDuplicates;
+    private final LongAdder unchangedPages = new LongAdder();
+    private IOException failure;
+
     /**
      * Constructs the indexer using the list of files to index and the path for the
      * resulting Lucene index files to be saved.
@@ -54,23 +69,187 @@ public class Indexer {
      * @throws IOException
      */
     public Indexer(File[] fileList, String indexDirectoryPath) throws IOException {
-        docTimes = new ArrayList<>();
+        this(fileList, indexDirectoryPath, new IndexerSettings());
+    }
+
+    /**
+     * Constructs the indexer using the list of files to index, the path for the
+     * resulting Lucene index files to be saved and the options for the run.
+     * @param fileList The list of files to index
+     * @param indexDirectoryPath The directory path for the resulting indexing files
+     * @param settings The options for the run, such as the number of threads
+     * @throws IOException
+     */
+    public Indexer(File[] fileList, String indexDirectoryPath, IndexerSettings settings)
+            throws IOException {
+        this.settings = settings;
+        documentBuilder = new WebsiteDocumentBuilder(settings);
+        metrics = new IndexingMetrics(settings);
+        if (!settings.getNearDuplicates().equals(IndexerSettings.NEAR_DUPLICATES_OFF))
+            nearDuplicates = new NearDuplicateDetector(settings.getNearDuplicateDistance());
         Directory indexDirectory = FSDirectory.open(Paths.get(indexDirectoryPath));
         try {
-            writer = new IndexWriter(indexDirectory, new IndexWriterConfig(
-                    new StandardAnalyzer(initializeStopWords())));
+            IndexWriterConfig config = settings.getProfile().createConfig(
+                    new StandardAnalyzer(initializeStopWords()),
+                    metrics.createMergeScheduler());
+            config.setInfoStream(metrics.createInfoStream());
+            writer = new IndexWriter(indexDirectory, config);
+            checkpointer = new Checkpointer(writer, settings.getCheckpointInterval(),
+                    metrics);
+            metrics.startPeriodicDump();
+            quarantine = new QuarantineFile(new File(settings.getQuarantinePath()));
+            docTimes = new DocTimeSeriesWriter(new File(settings.getTimesPath()),
+                    settings.isResume() || settings.isIncremental());
+            if (settings.isResume())
+                fileList = startResume(fileList);
+            if (settings.isIncremental())
+                fileList = startIncremental(fileList, indexDirectory, indexDirectoryPath);
             indexFiles(fileList);
+            forceMerge();
+            checkpointer.markComplete();
             closeIndexWriter();
+            if (settings.isIncremental())
+                finishIncremental(fileList);
+            if (nearDuplicates != null)
+                System.out.println(metrics.getNearDuplicates() + " near-duplicate pages (" +
+                        metrics.getNearDuplicateBytes() / 1024 + " KB of text) " +
+                        (settings.getNearDuplicates().equals(
+                                IndexerSettings.NEAR_DUPLICATES_SKIP) ?
+                                "skipped." : "clustered."));
         } catch (FileNotFoundException e) {
+            failure = e;
             System.out.println ("Input file path is incorrect");
             e.printStackTrace();
         } catch (IOException e) {
+            failure = e;
             System.out.println ("Error with creating the index writer");
             e.printStackTrace();
-        } catch (ParseException e) {
-            System.out.println("Error with reading the files");
-            e.printStackTrace();
+        } finally {
+            if (previousPages != null)
+                previousPages.close();
+            if (quarantine != null)
+                quarantine.close();
+            if (docTimes != null)
+                docTimes.close();
+            metrics.finish();
+        }
+    }
+
+    /**
+     * Force-merges the index down to the number of segments of the settings, if any. A
+     * shard that is combined with the others afterwards is not merged on its own, since
+     * the combined index is merged instead; a kept shard is merged like an index.
+     * @throws IOException
+     */
+    private void forceMerge() throws IOException {
+        int maxSegments = settings.getMaxSegments();
+        if (maxSegments <= 0 || (settings.getNumShards() > 1 && !settings.isKeepShards()))
+            return;
+        System.out.println("Force-merging the index to " + maxSegments + " segment(s).");
+        writer.forceMerge(maxSegments);
+    }
+
+    /**
+     * Prepares to resume the run that stopped at the last checkpoint of the index. The
+     * files are indexed in order of their names, so the files before the checkpoint
+     * file are skipped and the checkpoint file is started at the checkpoint offset.
+     * @param fileList The list of files given for the run
+     * @return The files that still need to be indexed
+     * @throws FileNotFoundException
+     */
+    private File[] startResume(File[] fileList) throws FileNotFoundException {
+        if (checkpointer.isLastRunComplete()) {
+            System.out.println("The last run finished, so there is nothing to resume.");
+            return new File[0];
+        }
+        if (!checkpointer.canResume()) {
+            System.out.println("No checkpoint was found in the index. Indexing all files.");
+            return fileList;
         }
+
+        File[] sortedFiles = sortByName(fileList);
+        for (int i = 0; i < sortedFiles.length; i++) {
+            if (sortedFiles[i].getName().equals(checkpointer.getResumeFile())) {
+                resumeFile = sortedFiles[i];
+                resumeOffset = checkpointer.getResumeOffset();
+                System.out.println("Resuming from byte " + resumeOffset + " of " +
+                        resumeFile.getName() + ".");
+                return Arrays.copyOfRange(sortedFiles, i, sortedFiles.length);
+            }
+        }
+        throw new FileNotFoundException("The data file " + checkpointer.getResumeFile()
+                + " of the last checkpoint is not in the data folder.");
+    }
+
+    /**
+     * Retrieves the byte offset to start reading a file at, which is only past the
+     * start for the checkpoint file of a resumed run.
+     * @param file The data file to read
+     * @return The offset of the first line to index
+     */
+    long getStartOffset(File file) { return file.equals(resumeFile) ? resumeOffset : 0; }
+
+    /**
+     * Checks if it is time to commit a checkpoint.
+     * @return True if a checkpoint should be made; false otherwise.
+     */
+    boolean isCheckpointDue() { return checkpointer.isDue(); }
+
+    /**
+     * Commits the index as a checkpoint. Every line before the given position must
+     * already be indexed.
+     * @param file The data file being indexed
+     * @param offset The byte offset in the file that all lines before are indexed
+     * @throws IOException
+     */
+    void checkpoint(File file, long offset) throws IOException {
+        checkpointer.checkpoint(file, offset);
+    }
+
+    /**
+     * Sorts a list of files by name, so that the files are always indexed in the same
+     * order and a checkpoint can be found again.
+     * @param fileList The list of files
+     * @return A sorted copy of the list
+     */
+    private static File[] sortByName(File[] fileList) {
+        File[] sortedFiles = fileList.clone();
+        Arrays.sort(sortedFiles, Comparator.comparing(File::getName));
+        return sortedFiles;
+    }
+
+    /**
+     * Prepares an incremental run. Only the data files that are new or changed since
+     * the last run are kept, and the existing index is opened to find the pages that
+     * have not changed.
+     * @param fileList The list of files given for the run
+     * @param indexDirectory The directory of the index files
+     * @param indexDirectoryPath The directory path of the index files
+     * @return The files that need to be indexed
+     * @throws IOException
+     */
+    private File[] startIncremental(File[] fileList, Directory indexDirectory,
+                                    String indexDirectoryPath) throws IOException {
+        manifest = new IndexManifest(indexDirectoryPath);
+        File[] changedFiles = manifest.changedFiles(fileList);
+        System.out.println("Incremental run: " + (fileList.length - changedFiles.length)
+                + " of " + fileList.length + " data files are unchanged and skipped.");
+        if (DirectoryReader.indexExists(indexDirectory))
+            previousPages = new PageHashLookup(indexDirectory, JSON_KEYS[2], HASH_FIELD);
+        return changedFiles;
+    }
+
+    /**
+     * Records the indexed data files in the manifest once the index has been committed
+     * and reports how many pages were skipped.
+     * @param fileList The files that were indexed
+     * @throws IOException
+     */
+    private void finishIncremental(File[] fileList) throws IOException {
+        manifest.record(fileList);
+        manifest.save();
+        System.out.println("Incremental run: " + docTimes.getCount() + " pages added or " +
+                "updated, " + unchangedPages.sum() + " unchanged pages skipped.");
     }
 
     /**
@@ -86,6 +265,40 @@ public class Indexer {
         }
     }
 
+    /**
+     * Replaces the indexed document that has the same url as the given website, or
+     * adds the website if its url is not in the index yet.
+     * @param url The url of the website
+     * @param website A website object
+     */
+    private void updateWebsite(String url, Document website) {
+        try {
+            writer.updateDocument(new Term(JSON_KEYS[2], url), website);
+        } catch (IOException e) {
+            System.out.println("Error with updating documents in index writer");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Checks if a website is already in the index with the same content. Always false
+     * unless the run is incremental and an index existed before the run.
+     * @param url The url of the website
+     * @param hash The content hash of the website
+     * @return True if the website can be skipped; false otherwise.
+     */
+    private boolean isUnchanged(String url, long hash) {
+        if (previousPages == null)
+            return false;
+        try {
+            return previousPages.isUnchanged(url, hash);
+        } catch (IOException e) {
+            System.out.println("Error with looking up the website in the index");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
     /**
      * Initializes the stop words for the indexer. The words chosen are words that have
      * been defined in previous versions of Lucene as common English words that are not
@@ -103,42 +316,178 @@ public class Indexer {
     /**
      * Indexes all the lines in a file, where each line represents the information for
      * a website.
+     * When more than one thread is requested, the files are indexed by a pipeline of
+     * worker threads instead.
      * @param fileList The list of files to index its contents.
-     * @throws ParseException
-     * @throws FileNotFoundException
+     * @throws IOException
      */
-    private void indexFiles(File[] fileList) throws ParseException, FileNotFoundException {
-        JSONParser jsonParser = new JSONParser();
+    private void indexFiles(File[] fileList) throws IOException {
         final long startTime = System.currentTimeMillis();
+        fileList = sortByName(fileList);
+        if (settings.getNumThreads() > 1) {
+            new IndexingPipeline(this, settings).run(fileList, startTime);
+            return;
+        }
 
+        WebsiteLineParser lineParser = new WebsiteLineParser();
         for (int i = 0; i < fileList.length; i++) {
-            Scanner scanner = new Scanner(fileList[i], "utf-8");
-            while (scanner.hasNextLine()) {
-                StringBuilder jsonString = new StringBuilder();
-                jsonString.append(scanner.nextLine());
-                JSONObject obj = (JSONObject) jsonParser.parse(jsonString.toString());
-                indexWebsite(createWebsiteDocument((obj)));
-                long endTime = System.currentTimeMillis() - startTime;
-                docTimes.add(endTime);
+            try (ChunkReader reader = DataFormat.openReader(fileList[i],
+                    settings.getChunkSize(), getStartOffset(fileList[i]))) {
+                DataChunk chunk;
+                while ((chunk = readChunk(reader)) != null) {
+                    indexChunk(chunk, lineParser, startTime);
+                    if (isCheckpointDue())
+                        checkpoint(fileList[i], reader.getPosition());
+                }
             }
         }
     }
 
     /**
-     * Creates an document object representing the fields of the website, as per the
-     * defined json keys: title, text, and url.
-     * @param obj The object representing the content of the website in JSON format
-     * @return
+     * Reads the next chunk of a data file and records the time it took.
+     * @param reader The reader of the data file
+     * @return The chunk of lines, or null once the whole file has been read
+     * @throws IOException
+     */
+    DataChunk readChunk(ChunkReader reader) throws IOException {
+        long start = System.nanoTime();
+        DataChunk chunk = reader.nextChunk();
+        if (chunk != null) {
+            metrics.record(IndexingMetrics.Stage.READ, start);
+            metrics.addBytes(chunk.getBytes().remaining());
+        }
+        return chunk;
+    }
+
+    /**
+     * Indexes every line in a chunk of a data file. Lines that cannot be indexed are
+     * moved to the quarantine file instead of stopping the run. This is called by every
+     * indexing thread, so the parser must belong to the caller.
+     * @param chunk The whole lines from a data file
+     * @param lineParser The parser owned by the calling thread
+     * @param startTime The time the indexing started
+     * @throws IOException
+     */
+    void indexChunk(DataChunk chunk, WebsiteLineParser lineParser, long startTime)
+            throws IOException {
+        ByteBuffer bytes = chunk.getBytes();
+        int lineStart = bytes.position();
+        int limit = bytes.limit();
+        int batchStart = lineStart;
+        int batchDocuments = 0;
+        long[] batchTimes = new long[BATCH_SIZE];
+        for (int i = lineStart; i <= limit; i++) {
+            if (i == limit || bytes.get(i) == '\n') {
+                try {
+                    long parseStart = System.nanoTime();
+                    boolean parsed = lineParser.parse(bytes, lineStart, i);
+                    metrics.record(IndexingMetrics.Stage.PARSE, parseStart);
+                    if (parsed) {
+                        if (isMissingField(lineParser))
+                            quarantine.add(chunk, lineStart, i, "missing text, title " +
+                                    "or url");
+                        else if (indexLine(lineParser))
+                            batchTimes[batchDocuments++] =
+                                    System.currentTimeMillis() - startTime;
+                    }
+                } catch (ParseException e) {
+                    quarantine.add(chunk, lineStart, i, e.toString());
+                }
+                lineStart = i + 1;
+                if (batchDocuments == BATCH_SIZE) {
+                    finishBatch(batchTimes, batchDocuments, lineStart - batchStart);
+                    batchStart = lineStart;
+                    batchDocuments = 0;
+                }
+            }
+        }
+        finishBatch(batchTimes, batchDocuments, Math.min(lineStart, limit) - batchStart);
+    }
+
+    /**
+     * Records the completion times of a batch of documents and publishes the batch to
+     * the live dashboard, so neither takes a lock for every document.
+     * @param batchTimes The completion times of the documents of the batch
+     * @param batchDocuments The number of documents in the batch
+     * @param batchBytes The number of bytes of the lines of the batch
+     */
+    private void finishBatch(long[] batchTimes, int batchDocuments, long batchBytes) {
+        if (batchDocuments == 0)
+            return;
+        try {
+            docTimes.appendAll(batchTimes, batchDocuments);
+        } catch (IOException e) {
+            System.out.println("Error with writing the document completion time");
+            e.printStackTrace();
+        }
+        metrics.publishDocuments(batchDocuments, batchBytes);
+    }
+
+    /**
+     * Checks if the website of the line that was just parsed is missing a field that
+     * every document needs.
+     * @param website The parser holding the fields of the website
+     * @return True if the text, title or url is missing; false otherwise.
+     */
+    private boolean isMissingField(WebsiteLineParser website) {
+        return website.getText() == null || website.getTitle() == null ||
+                website.getUrl() == null;
+    }
+
+    /**
+     * Finds the cluster of near-duplicates of a website. A website that is not a
+     * near-duplicate of an earlier one, or whose text is too short to compare, starts
+     * its own cluster, whose id is the hash of its url.
+     * @param website The parser holding the fields of the website
+     * @return The id of the cluster of the website
+     */
+    private long findCluster(WebsiteLineParser website) {
+        long ownId = WebsiteDocumentBuilder.urlHash(website.getUrl());
+        long fingerprint = NearDuplicateDetector.fingerprint(website.getText());
+        if (fingerprint == NearDuplicateDetector.NO_FINGERPRINT)
+            return ownId;
+        return nearDuplicates.findOrAdd(fingerprint, ownId);
+    }
+
+    /**
+     * Indexes the website of the line that was just parsed.
+     * @param website The parser holding the fields of the website
+     * @return True if the website was added to the index; false if it was skipped.
      */
-    private Document createWebsiteDocument(JSONObject obj) {
-        Document doc = new Document();
-        doc.add(new TextField(JSON_KEYS[0], (String) obj.get(JSON_KEYS[0]),
-                Field.Store.YES)); //text
-        doc.add(new TextField(JSON_KEYS[1], (String) obj.get(JSON_KEYS[1]),
-                Field.Store.YES)); //title
-        doc.add(new StringField(JSON_KEYS[2], (String) obj.get(JSON_KEYS[2]),
-                Field.Store.YES)); //url
-        return doc;
+    private boolean indexLine(WebsiteLineParser website) {
+        long hash = WebsiteDocumentBuilder.contentHash(website.getTitle(),
+                website.getText());
+        if (isUnchanged(website.getUrl(), hash)) {
+            unchangedPages.increment();
+            return false;
+        }
+
+        long clusterId = 0;
+        if (nearDuplicates != null) {
+            clusterId = findCluster(website);
+            if (clusterId != WebsiteDocumentBuilder.urlHash(website.getUrl())) {
+                metrics.addNearDuplicate(NearDuplicateDetector.utf8Length(
+                        website.getText()));
+                if (settings.getNearDuplicates().equals(
+                        IndexerSettings.NEAR_DUPLICATES_SKIP))
+                    return false;
+            }
+        }
+
+        long buildStart = System.nanoTime();
+        Document doc = documentBuilder.createWebsiteDocument(website, hash);
+        if (nearDuplicates != null)
+            documentBuilder.addCluster(doc, clusterId);
+        metrics.record(IndexingMetrics.Stage.BUILD, buildStart);
+
+        long addStart = System.nanoTime();
+        if (settings.isIncremental())
+            updateWebsite(website.getUrl(), doc);
+        else
+            indexWebsite(doc);
+        metrics.record(IndexingMetrics.Stage.ADD, addStart);
+        metrics.addDocument();
+        return true;
     }
 
     /**
@@ -147,12 +496,30 @@ public class Indexer {
      * @throws IOException
      */
     public void closeIndexWriter() throws CorruptIndexException, IOException {
+        long start = System.nanoTime();
         writer.close();
+        metrics.record(IndexingMetrics.Stage.COMMIT, start);
     }
 
     /**
-     * Retrieves the list of times for indexing each website document in the files.
-     * @return List of end times for each document
+     * Retrieves the error that stopped the run, which the constructor prints instead of
+     * throwing. A sharded build checks it so that a failed shard is not merged.
+     * @return The error of the run, or null if the run finished
      */
-    public ArrayList<Long> getDocTimes() { return docTimes; }
+    public IOException getFailure() { return failure; }
+
+    /**
+     * Retrieves the timings of the stages of the run and its throughput.
+     * @return The metrics of the run
+     */
+    public IndexingMetrics getMetrics() { return metrics; }
+
+    /**
+     * Retrieves the number of website documents that were indexed. The completion time
+     * of each of them is in the document times file of the settings.
+     * @return The number of documents indexed
+     */
+    public long getNumDocuments() {
+        return (docTimes == null) ? 0 : docTimes.getCount();
+    }
 }
\ No newline at end of file
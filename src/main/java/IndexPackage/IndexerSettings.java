@@ -0,0 +1,539 @@
+package IndexPackage;
+
+import GraphPackage.IndexTimeGrapher;
+import GraphPackage.ThroughputRing;
+
+/**
+ * This class holds the settings used by the Lucene indexer for a run. The defaults
+ * reproduce the original single-threaded indexer, so constructing the indexer without
+ * options behaves the same as before. Options are given on the command line of the
+ * IndexBuilder in the form --name=value.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class IndexerSettings implements Cloneable {
+    private static final int DEFAULT_THREADS = 1;
+    private static final int DEFAULT_QUEUE_CAPACITY = 64;
+    private static final int DEFAULT_CHUNK_SIZE = 4 << 20;
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 60;
+    private static final String DEFAULT_QUARANTINE_PATH = "quarantine.data";
+    private static final String DEFAULT_METRICS_PATH = "index_metrics.json";
+    private static final String DEFAULT_TIMES_PATH = "lucenetimes.bin";
+    private static final int DEFAULT_SUGGEST_MIN_DOC_FREQ = 5;
+    private static final int DEFAULT_NEAR_DUPLICATE_DISTANCE = 6;
+    public static final String NEAR_DUPLICATES_OFF = "off";
+    public static final String NEAR_DUPLICATES_SKIP = "skip";
+    public static final String NEAR_DUPLICATES_CLUSTER = "cluster";
+    public static final String GRAPH_WINDOW = "window";
+    public static final String GRAPH_PNG = "png";
+    public static final String GRAPH_SVG = "svg";
+    public static final String GRAPH_NONE = "none";
+    private static final String DEFAULT_GRAPH_NAME = "lucenetimes";
+    private static final int DEFAULT_LIVE_INTERVAL = 1000;
+    private static final int DEFAULT_LIVE_WINDOW = 300;
+
+    private int numThreads = DEFAULT_THREADS;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private boolean incremental;
+    private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    private boolean resume;
+    private String quarantinePath = DEFAULT_QUARANTINE_PATH;
+    private int numShards = 1;
+    private boolean keepShards;
+    private int maxSegments;
+    private WriteProfile profile = WriteProfile.DEFAULT;
+    private String metricsPath = DEFAULT_METRICS_PATH;
+    private int metricsInterval;
+    private String timesPath = DEFAULT_TIMES_PATH;
+    private boolean exportTimesText;
+    private boolean indexOffsets;
+    private boolean shortFieldDocValues;
+    private boolean buildSuggester;
+    private String nearDuplicates = NEAR_DUPLICATES_OFF;
+    private int nearDuplicateDistance = DEFAULT_NEAR_DUPLICATE_DISTANCE;
+    private int suggestMinDocFreq = DEFAULT_SUGGEST_MIN_DOC_FREQ;
+    private String graph = GRAPH_WINDOW;
+    private String graphPath;
+    private int graphPoints = IndexTimeGrapher.DEFAULT_MAX_POINTS;
+    private boolean live;
+    private int liveInterval = DEFAULT_LIVE_INTERVAL;
+    private int liveWindow = DEFAULT_LIVE_WINDOW;
+    private ThroughputRing liveFeed;
+
+    /**
+     * Creates the settings from the command line flags given to the IndexBuilder. Only
+     * arguments starting with "--" are read; any other argument is ignored here.
+     * @param args The command line arguments
+     * @return The settings for the run
+     */
+    public static IndexerSettings parse(String[] args) {
+        IndexerSettings settings = new IndexerSettings();
+        for (String arg : args) {
+            if (!isOption(arg))
+                continue;
+            int split = arg.indexOf('=');
+            String name = (split < 0) ? arg.substring(2) : arg.substring(2, split);
+            String value = (split < 0) ? "" : arg.substring(split + 1);
+            settings.set(name, value);
+        }
+        settings.validate();
+        return settings;
+    }
+
+    /**
+     * Checks that the options given together can be used in the same run. An
+     * incremental run cannot be sharded: each shard is indexed into a new directory, so
+     * it can neither find nor replace the pages already in the index, and which shard a
+     * file goes to changes with the sizes of the files from one run to the next.
+     */
+    private void validate() {
+        if (incremental && numShards > 1)
+            throw new RuntimeException("Option --incremental cannot be combined with " +
+                    "--shards=" + numShards + ". Use --shards=1 for incremental runs.");
+    }
+
+    /**
+     * Creates a copy of the settings that can be changed without changing these.
+     * @return The copy of the settings
+     */
+    public IndexerSettings copy() {
+        try {
+            return (IndexerSettings) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Checks if a command line argument is an option rather than a directory.
+     * @param arg The command line argument
+     * @return True if the argument is an option; false otherwise.
+     */
+    public static boolean isOption(String arg) { return arg.startsWith("--"); }
+
+    /**
+     * Sets a single option by its command line name.
+     * @param name The name of the option without the leading dashes
+     * @param value The value given for the option
+     */
+    private void set(String name, String value) {
+        switch (name) {
+            case "threads":
+                setNumThreads(parsePositiveInt(name, value));
+                break;
+            case "queue":
+                setQueueCapacity(parsePositiveInt(name, value));
+                break;
+            case "chunk":
+                setChunkSize(parsePositiveInt(name, value));
+                break;
+            case "incremental":
+                setIncremental(parseFlag(name, value));
+                break;
+            case "checkpoint":
+                setCheckpointInterval(parseNonNegativeInt(name, value));
+                break;
+            case "resume":
+                setResume(parseFlag(name, value));
+                break;
+            case "quarantine":
+                setQuarantinePath(value);
+                break;
+            case "shards":
+                setNumShards(parsePositiveInt(name, value));
+                break;
+            case "keep-shards":
+                setKeepShards(parseFlag(name, value));
+                break;
+            case "max-segments":
+                setMaxSegments(parseNonNegativeInt(name, value));
+                break;
+            case "profile":
+                setProfile(WriteProfile.fromName(value));
+                break;
+            case "metrics":
+                setMetricsPath(value);
+                break;
+            case "metrics-interval":
+                setMetricsInterval(parseNonNegativeInt(name, value));
+                break;
+            case "times":
+                setTimesPath(value);
+                break;
+            case "times-text":
+                setExportTimesText(parseFlag(name, value));
+                break;
+            case "graph":
+                setGraph(value);
+                break;
+            case "graph-file":
+                setGraphPath(value);
+                break;
+            case "graph-points":
+                setGraphPoints(parsePositiveInt(name, value));
+                break;
+            case "live":
+                setLive(parseFlag(name, value));
+                break;
+            case "live-interval":
+                setLiveInterval(parsePositiveInt(name, value));
+                break;
+            case "live-window":
+                setLiveWindow(parsePositiveInt(name, value));
+                break;
+            case "offsets":
+                setIndexOffsets(parseFlag(name, value));
+                break;
+            case "doc-values":
+                setShortFieldDocValues(parseFlag(name, value));
+                break;
+            case "near-dups":
+                setNearDuplicates(value);
+                break;
+            case "near-dup-distance":
+                setNearDuplicateDistance(parseNonNegativeInt(name, value));
+                break;
+            case "suggest":
+                setBuildSuggester(parseFlag(name, value));
+                break;
+            case "suggest-min-df":
+                setSuggestMinDocFreq(parsePositiveInt(name, value));
+                break;
+            default:
+                throw new RuntimeException("Unknown indexer option --" + name + ".");
+        }
+    }
+
+    /**
+     * Parses the value of an option that must be a positive integer.
+     * @param name The name of the option, used for the error message
+     * @param value The value given for the option
+     * @return The value as an integer
+     */
+    private static int parsePositiveInt(String name, String value) {
+        try {
+            int result = Integer.parseInt(value);
+            if (result > 0)
+                return result;
+        } catch (NumberFormatException e) {
+            //fall through to the error below
+        }
+        throw new RuntimeException("Option --" + name + " requires a positive " +
+                "integer but was given \"" + value + "\".");
+    }
+
+    /**
+     * Parses the value of an option that must be zero or a positive integer.
+     * @param name The name of the option, used for the error message
+     * @param value The value given for the option
+     * @return The value as an integer
+     */
+    private static int parseNonNegativeInt(String name, String value) {
+        return value.equals("0") ? 0 : parsePositiveInt(name, value);
+    }
+
+    /**
+     * Parses the value of an option that is switched on by naming it, such as
+     * --incremental, or given explicitly as true or false.
+     * @param name The name of the option, used for the error message
+     * @param value The value given for the option
+     * @return The value as a boolean
+     */
+    private static boolean parseFlag(String name, String value) {
+        if (value.isEmpty() || value.equalsIgnoreCase("true"))
+            return true;
+        if (value.equalsIgnoreCase("false"))
+            return false;
+        throw new RuntimeException("Option --" + name + " requires true or false but " +
+                "was given \"" + value + "\".");
+    }
+
+    /**
+     * Retrieves the number of worker threads that parse and add the documents. A value
+     * of 1 indexes the files on the calling thread in file order.
+     * @return The number of indexing threads
+     */
+    public int getNumThreads() { return numThreads; }
+
+    public void setNumThreads(int numThreads) { this.numThreads = numThreads; }
+
+    /**
+     * Retrieves the number of chunks that may wait between the file reader and the
+     * indexing threads before the reader blocks.
+     * @return The capacity of the queue between the pipeline stages
+     */
+    public int getQueueCapacity() { return queueCapacity; }
+
+    public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+    /**
+     * Retrieves the number of bytes the file reader hands to a worker at a time. Each
+     * chunk is cut at a line break, so a chunk may be larger to hold one long line.
+     * @return The number of bytes in each chunk
+     */
+    public int getChunkSize() { return chunkSize; }
+
+    public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+
+    /**
+     * Checks if the run only indexes the new and changed data files and pages. Pages
+     * replace the indexed page with the same url, and pages whose content hash has not
+     * changed are skipped.
+     * @return True if the run is incremental; false if every page is appended.
+     */
+    public boolean isIncremental() { return incremental; }
+
+    public void setIncremental(boolean incremental) { this.incremental = incremental; }
+
+    /**
+     * Retrieves the number of seconds between the checkpoint commits of the index. A
+     * value of 0 only commits the index at the end of the run.
+     * @return The seconds between checkpoints
+     */
+    public int getCheckpointInterval() { return checkpointInterval; }
+
+    public void setCheckpointInterval(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Checks if the run continues the run that stopped at the last checkpoint of the
+     * existing index instead of starting over.
+     * @return True if the run is resumed; false otherwise.
+     */
+    public boolean isResume() { return resume; }
+
+    public void setResume(boolean resume) { this.resume = resume; }
+
+    /**
+     * Retrieves the path of the file that lines which cannot be indexed are saved to.
+     * @return The path of the quarantine file
+     */
+    public String getQuarantinePath() { return quarantinePath; }
+
+    public void setQuarantinePath(String quarantinePath) {
+        this.quarantinePath = quarantinePath;
+    }
+
+    /**
+     * Retrieves the number of shards the data files are split into. Each shard is
+     * indexed at the same time by its own Indexer. A value of 1 builds a single index.
+     * @return The number of shards
+     */
+    public int getNumShards() { return numShards; }
+
+    public void setNumShards(int numShards) { this.numShards = numShards; }
+
+    /**
+     * Checks if the shards are kept as separate indexes in the index directory instead
+     * of being combined into one index.
+     * @return True if the shards are kept; false if they are merged.
+     */
+    public boolean isKeepShards() { return keepShards; }
+
+    public void setKeepShards(boolean keepShards) { this.keepShards = keepShards; }
+
+    /**
+     * Retrieves the number of segments the index is force-merged down to at the end of
+     * the run. Unless it was set, this is the number of the write profile, where a
+     * value of 0 leaves the segments as they are.
+     * @return The target number of segments
+     */
+    public int getMaxSegments() {
+        return (maxSegments > 0) ? maxSegments : profile.getForceMergeSegments();
+    }
+
+    public void setMaxSegments(int maxSegments) { this.maxSegments = maxSegments; }
+
+    /**
+     * Retrieves the write profile that configures the IndexWriter for the run.
+     * @return The write profile
+     */
+    public WriteProfile getProfile() { return profile; }
+
+    public void setProfile(WriteProfile profile) { this.profile = profile; }
+
+    /**
+     * Retrieves the path of the JSON file the indexing metrics are saved to.
+     * @return The path of the metrics file
+     */
+    public String getMetricsPath() { return metricsPath; }
+
+    public void setMetricsPath(String metricsPath) { this.metricsPath = metricsPath; }
+
+    /**
+     * Retrieves the number of seconds between saves of the metrics during the run. A
+     * value of 0 only saves the metrics at the end of the run.
+     * @return The seconds between saves of the metrics
+     */
+    public int getMetricsInterval() { return metricsInterval; }
+
+    public void setMetricsInterval(int metricsInterval) {
+        this.metricsInterval = metricsInterval;
+    }
+
+    /**
+     * Retrieves the path of the binary file the completion time of each document is
+     * written to during the run.
+     * @return The path of the document times file
+     */
+    public String getTimesPath() { return timesPath; }
+
+    public void setTimesPath(String timesPath) { this.timesPath = timesPath; }
+
+    /**
+     * Checks if the document times are also exported as text, one time per line, at the
+     * end of the run.
+     * @return True if the times are exported as text; false otherwise.
+     */
+    public boolean isExportTimesText() { return exportTimesText; }
+
+    public void setExportTimesText(boolean exportTimesText) {
+        this.exportTimesText = exportTimesText;
+    }
+
+    /**
+     * Retrieves how the graph of the document times is shown at the end of the run:
+     * window to open it on the screen, png or svg to save it to a file without a
+     * display, or none for no graph.
+     * @return The graph output
+     */
+    public String getGraph() { return graph; }
+
+    public void setGraph(String graph) {
+        if (!graph.equals(GRAPH_WINDOW) && !graph.equals(GRAPH_PNG) &&
+                !graph.equals(GRAPH_SVG) && !graph.equals(GRAPH_NONE))
+            throw new RuntimeException("Unknown graph output \"" + graph +
+                    "\". Choose window, png, svg or none.");
+        this.graph = graph;
+    }
+
+    /**
+     * Retrieves the path of the file the graph is saved to, which defaults to
+     * lucenetimes.png or lucenetimes.svg.
+     * @return The path of the graph file
+     */
+    public String getGraphPath() {
+        if (graphPath != null)
+            return graphPath;
+        return DEFAULT_GRAPH_NAME + "." + (graph.equals(GRAPH_SVG) ? GRAPH_SVG : GRAPH_PNG);
+    }
+
+    public void setGraphPath(String graphPath) { this.graphPath = graphPath; }
+
+    /**
+     * Retrieves the largest number of points drawn for the line of the graph. Longer
+     * series are downsampled so the graph costs the same to draw for any corpus.
+     * @return The number of points of the graph
+     */
+    public int getGraphPoints() { return graphPoints; }
+
+    public void setGraphPoints(int graphPoints) { this.graphPoints = graphPoints; }
+
+    /**
+     * Checks if the live dashboard of the throughput is shown while the index is built.
+     * @return True if the dashboard is shown; false otherwise.
+     */
+    public boolean isLive() { return live; }
+
+    public void setLive(boolean live) { this.live = live; }
+
+    /**
+     * Retrieves the milliseconds between the points of the live dashboard.
+     * @return The refresh interval of the dashboard in milliseconds
+     */
+    public int getLiveInterval() { return liveInterval; }
+
+    public void setLiveInterval(int liveInterval) { this.liveInterval = liveInterval; }
+
+    /**
+     * Retrieves the number of latest points the live dashboard keeps and draws.
+     * @return The number of points of the dashboard
+     */
+    public int getLiveWindow() { return liveWindow; }
+
+    public void setLiveWindow(int liveWindow) { this.liveWindow = liveWindow; }
+
+    /**
+     * Retrieves the ring the indexing threads publish their progress to for the live
+     * dashboard. It is not a command line option but is set by the IndexBuilder for the
+     * run, and shared by the settings of every shard.
+     * @return The ring of the dashboard, or null if there is no live dashboard
+     */
+    public ThroughputRing getLiveFeed() { return liveFeed; }
+
+    public void setLiveFeed(ThroughputRing liveFeed) { this.liveFeed = liveFeed; }
+
+    /**
+     * Checks if the character offsets of every term of the website text are indexed
+     * with its postings, so that snippets can be highlighted without analyzing the text
+     * again.
+     * @return True if offsets are indexed; false otherwise.
+     */
+    public boolean isIndexOffsets() { return indexOffsets; }
+
+    public void setIndexOffsets(boolean indexOffsets) { this.indexOffsets = indexOffsets; }
+
+    /**
+     * Checks if the title and url of every website are also kept in doc values, so that
+     * result lists can be loaded without decompressing the stored text.
+     * @return True if the short fields are kept in doc values; false otherwise.
+     */
+    public boolean isShortFieldDocValues() { return shortFieldDocValues; }
+
+    public void setShortFieldDocValues(boolean shortFieldDocValues) {
+        this.shortFieldDocValues = shortFieldDocValues;
+    }
+
+    /**
+     * Retrieves what is done with websites whose text is nearly the same as a website
+     * indexed earlier in the run: off to index them as usual, skip to leave them out of
+     * the index, or cluster to index them with the id of their cluster.
+     * @return The handling of near-duplicate websites
+     */
+    public String getNearDuplicates() { return nearDuplicates; }
+
+    public void setNearDuplicates(String nearDuplicates) {
+        if (!nearDuplicates.equals(NEAR_DUPLICATES_OFF) &&
+                !nearDuplicates.equals(NEAR_DUPLICATES_SKIP) &&
+                !nearDuplicates.equals(NEAR_DUPLICATES_CLUSTER))
+            throw new RuntimeException("Unknown near-duplicate handling \"" +
+                    nearDuplicates + "\". Choose off, skip or cluster.");
+        this.nearDuplicates = nearDuplicates;
+    }
+
+    /**
+     * Retrieves the largest number of bits in which the fingerprints of the text of two
+     * near-duplicate websites may differ.
+     * @return The near-duplicate distance in bits
+     */
+    public int getNearDuplicateDistance() { return nearDuplicateDistance; }
+
+    public void setNearDuplicateDistance(int nearDuplicateDistance) {
+        this.nearDuplicateDistance = nearDuplicateDistance;
+    }
+
+    /**
+     * Checks if the suggester for query completion is built from the index at the end
+     * of the run.
+     * @return True if the suggester is built; false otherwise.
+     */
+    public boolean isBuildSuggester() { return buildSuggester; }
+
+    public void setBuildSuggester(boolean buildSuggester) {
+        this.buildSuggester = buildSuggester;
+    }
+
+    /**
+     * Retrieves the number of documents a term must appear in to be suggested.
+     * @return The smallest document frequency of a suggested term
+     */
+    public int getSuggestMinDocFreq() { return suggestMinDocFreq; }
+
+    public void setSuggestMinDocFreq(int suggestMinDocFreq) {
+        this.suggestMinDocFreq = suggestMinDocFreq;
+    }
+}
@@ -0,0 +1,261 @@
+package IndexPackage;
+
+import GraphPackage.ThroughputRing;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.util.InfoStream;
+import org.json.simple.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class measures where the time of an indexing run goes. Each stage of indexing a
+ * website has its own latency histogram: reading a chunk of a data file, parsing a
+ * line, building the document, adding it to the writer (which includes the analysis),
+ * flushing a segment, merging segments and committing. Flushes are timed through the
+ * writer's info stream and merges through its merge scheduler, since both happen inside
+ * Lucene. The documents and bytes indexed give the throughput of the run.
+ *
+ * The metrics are saved as JSON at the end of the run and, if an interval is given,
+ * every interval during the run.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class IndexingMetrics {
+    /** The stages of indexing that are timed. */
+    public enum Stage { READ, PARSE, BUILD, ADD, FLUSH, MERGE, COMMIT }
+
+    private static final String FLUSH_COMPONENT = "DWPT";
+    private static final String FLUSH_MESSAGE = "flush time ";
+    private static final String FLUSH_UNIT = " msec";
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder nearDuplicates = new LongAdder();
+    private final LongAdder nearDuplicateBytes = new LongAdder();
+    private final long startNanos = System.nanoTime();
+    private final IndexerSettings settings;
+    private final ThroughputRing liveFeed;
+    private ScheduledExecutorService dumper;
+
+    /**
+     * Constructs the metrics for a run.
+     * @param settings The settings of the run, saved with the metrics
+     */
+    public IndexingMetrics(IndexerSettings settings) {
+        this.settings = settings;
+        liveFeed = settings.getLiveFeed();
+        for (int i = 0; i < stages.length; i++)
+            stages[i] = new LatencyHistogram();
+    }
+
+    /**
+     * Records the time one occurrence of a stage took.
+     * @param stage The stage of indexing
+     * @param startNanos The System.nanoTime() when the stage started
+     */
+    public void record(Stage stage, long startNanos) {
+        stages[stage.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Retrieves the histogram of a stage.
+     * @param stage The stage of indexing
+     * @return The latencies of the stage
+     */
+    public LatencyHistogram getStage(Stage stage) { return stages[stage.ordinal()]; }
+
+    /** Counts one more document added to the index. */
+    public void addDocument() { documents.increment(); }
+
+    /**
+     * Counts the bytes of data read from the data files.
+     * @param numBytes The number of bytes read
+     */
+    public void addBytes(long numBytes) { bytes.add(numBytes); }
+
+    /**
+     * Publishes documents that were added to the index to the live dashboard, if there
+     * is one. Documents are published in batches to keep the cost off each document.
+     * @param numDocuments The number of documents added since the last batch
+     * @param numBytes The number of bytes of their lines
+     */
+    public void publishDocuments(long numDocuments, long numBytes) {
+        if (liveFeed != null && numDocuments > 0)
+            liveFeed.publish(ThroughputRing.DOCUMENTS, numDocuments, numBytes);
+    }
+
+    /**
+     * Counts one more near-duplicate website.
+     * @param numBytes The number of bytes of the text of the website
+     */
+    public void addNearDuplicate(long numBytes) {
+        nearDuplicates.increment();
+        nearDuplicateBytes.add(numBytes);
+    }
+
+    /**
+     * Retrieves the number of near-duplicate websites found so far.
+     * @return The number of near-duplicates
+     */
+    public long getNearDuplicates() { return nearDuplicates.sum(); }
+
+    /**
+     * Retrieves the number of bytes of text of the near-duplicate websites found so far.
+     * @return The bytes of the near-duplicates
+     */
+    public long getNearDuplicateBytes() { return nearDuplicateBytes.sum(); }
+
+    /**
+     * Retrieves the number of bytes of data read so far. Compressed data files are
+     * counted by their uncompressed bytes, and skipped files are not counted.
+     * @return The bytes read from the data files
+     */
+    public long getBytes() { return bytes.sum(); }
+
+    /**
+     * Creates the info stream for the writer, which times every flushed segment from
+     * the messages Lucene writes about its flushes.
+     * @return The info stream to give the writer configuration
+     */
+    public InfoStream createInfoStream() {
+        return new InfoStream() {
+            @Override
+            public void message(String component, String message) {
+                if (!message.startsWith(FLUSH_MESSAGE) || !message.endsWith(FLUSH_UNIT))
+                    return;
+                String millis = message.substring(FLUSH_MESSAGE.length(),
+                        message.length() - FLUSH_UNIT.length());
+                try {
+                    double flushMillis = Double.parseDouble(millis);
+                    getStage(Stage.FLUSH).record((long) (flushMillis * 1e6));
+                    if (liveFeed != null)
+                        liveFeed.publish(ThroughputRing.FLUSH, 1, (long) flushMillis);
+                } catch (NumberFormatException e) {
+                    //not the flush time message
+                }
+            }
+
+            @Override
+            public boolean isEnabled(String component) {
+                return FLUSH_COMPONENT.equals(component);
+            }
+
+            @Override
+            public void close() { }
+        };
+    }
+
+    /**
+     * Creates the merge scheduler for the writer, which times every merge.
+     * @return The merge scheduler to configure and give the writer configuration
+     */
+    public ConcurrentMergeScheduler createMergeScheduler() {
+        return new ConcurrentMergeScheduler() {
+            @Override
+            protected void doMerge(IndexWriter writer, MergePolicy.OneMerge merge)
+                    throws IOException {
+                long start = System.nanoTime();
+                super.doMerge(writer, merge);
+                record(Stage.MERGE, start);
+                if (liveFeed != null)
+                    liveFeed.publish(ThroughputRing.MERGE, 1,
+                            (System.nanoTime() - start) / 1000000);
+            }
+        };
+    }
+
+    /**
+     * Creates the JSON report of the run so far, with the settings of the run, the
+     * throughput and the latencies of every stage.
+     * @return The report as a JSON object
+     */
+    @SuppressWarnings("unchecked")
+    public JSONObject toJson() {
+        double seconds = (System.nanoTime() - startNanos) / NANOS_PER_SECOND;
+        long numDocuments = documents.sum();
+        long numBytes = bytes.sum();
+
+        JSONObject json = new JSONObject();
+        json.put("profile", settings.getProfile().toString());
+        json.put("threads", settings.getNumThreads());
+        json.put("elapsedSeconds", seconds);
+        json.put("documents", numDocuments);
+        json.put("bytes", numBytes);
+        json.put("docsPerSecond", numDocuments / Math.max(seconds, 1e-9));
+        json.put("bytesPerSecond", numBytes / Math.max(seconds, 1e-9));
+        json.put("nearDuplicates", nearDuplicates.sum());
+        json.put("nearDuplicateBytes", nearDuplicateBytes.sum());
+
+        JSONObject stageJson = new JSONObject();
+        for (Stage stage : Stage.values())
+            stageJson.put(stage.name().toLowerCase(), getStage(stage).toJson());
+        json.put("stages", stageJson);
+        return json;
+    }
+
+    /**
+     * Starts saving the metrics to the metrics file every interval of the settings, if
+     * an interval was given.
+     */
+    public void startPeriodicDump() {
+        int interval = settings.getMetricsInterval();
+        if (interval <= 0)
+            return;
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> {
+            try {
+                save();
+            } catch (IOException e) {
+                System.out.println("Error with saving the indexing metrics");
+                e.printStackTrace();
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the periodic saving and saves the final metrics of the run.
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        if (dumper != null)
+            dumper.shutdownNow();
+        save();
+        System.out.println("Indexing metrics are saved in " +
+                new File(settings.getMetricsPath()).getAbsolutePath());
+    }
+
+    /**
+     * Saves the metrics to the metrics file. The file is written under a temporary name
+     * first so that a reader never sees a partial file.
+     * @throws IOException
+     */
+    private synchronized void save() throws IOException {
+        Path path = new File(settings.getMetricsPath()).toPath();
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(tempPath,
+                StandardCharsets.UTF_8))) {
+            writer.println(toJson().toJSONString());
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,151 @@
+package IndexPackage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class runs the indexer as a pipeline over several threads. The calling thread
+ * reads the .data files and hands chunks of whole lines through a bounded queue to a
+ * pool of workers, which parse the JSON, build the website documents and add them to the
+ * shared IndexWriter. The IndexWriter is safe for concurrent use, so the documents end
+ * up in the same index as the single-threaded indexer, only in a different order.
+ *
+ * When a checkpoint is due, the reader stops handing out chunks until the workers have
+ * finished every chunk given so far, so the checkpoint covers exactly the lines read.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.1
+ *  @since Mar 03, 2020
+ */
+class IndexingPipeline {
+    private static final DataChunk END_OF_INPUT = new DataChunk(null, 0,
+            ByteBuffer.allocate(0));
+    private final Indexer indexer;
+    private final IndexerSettings settings;
+    private final BlockingQueue<DataChunk> chunks;
+    private final Object idleLock = new Object();
+    private int chunksInProgress;
+    private volatile Exception failure;
+
+    /**
+     * Constructs the pipeline for the given indexer.
+     * @param indexer The indexer whose writer receives the documents
+     * @param settings The thread, queue and chunk settings for the pipeline
+     */
+    IndexingPipeline(Indexer indexer, IndexerSettings settings) {
+        this.indexer = indexer;
+        this.settings = settings;
+        chunks = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+    }
+
+    /**
+     * Indexes all the lines of the given files using the worker threads. The method
+     * returns once every line has been added to the index writer.
+     * @param fileList The list of files to index its contents
+     * @param startTime The time the indexing started, for the document times
+     * @throws IOException
+     */
+    void run(File[] fileList, long startTime) throws IOException {
+        int numThreads = settings.getNumThreads();
+        ExecutorService workers = Executors.newFixedThreadPool(numThreads);
+        for (int i = 0; i < numThreads; i++)
+            workers.execute(() -> indexChunks(startTime));
+
+        try {
+            readFiles(fileList);
+        } finally {
+            try {
+                for (int i = 0; i < numThreads; i++)
+                    chunks.put(END_OF_INPUT);
+                workers.shutdown();
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                workers.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Indexing was interrupted");
+            }
+        }
+
+        if (failure instanceof IOException)
+            throw (IOException) failure;
+        if (failure != null)
+            throw (RuntimeException) failure;
+    }
+
+    /**
+     * The reader stage of the pipeline. Reads each file in order and puts its chunks on
+     * the queue, blocking whenever the workers fall behind.
+     * @param fileList The list of files to read
+     * @throws IOException
+     */
+    private void readFiles(File[] fileList) throws IOException {
+        try {
+            for (File file : fileList) {
+                try (ChunkReader reader = DataFormat.openReader(file,
+                        settings.getChunkSize(), indexer.getStartOffset(file))) {
+                    DataChunk chunk;
+                    while (failure == null &&
+                            (chunk = indexer.readChunk(reader)) != null) {
+                        synchronized (idleLock) {
+                            chunksInProgress++;
+                        }
+                        chunks.put(chunk);
+                        if (indexer.isCheckpointDue() && awaitIdle())
+                            indexer.checkpoint(file, reader.getPosition());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Reading the data files was interrupted");
+        }
+    }
+
+    /**
+     * Waits until the workers have finished every chunk put on the queue.
+     * @return True if the workers finished; false if a worker failed.
+     * @throws InterruptedException
+     */
+    private boolean awaitIdle() throws InterruptedException {
+        synchronized (idleLock) {
+            while (chunksInProgress > 0 && failure == null)
+                idleLock.wait();
+        }
+        return failure == null;
+    }
+
+    /**
+     * The worker stage of the pipeline. Takes chunks from the queue and indexes each
+     * line until the end of the input is reached. After a worker fails, the remaining
+     * chunks are taken without indexing so the reader is never blocked.
+     * @param startTime The time the indexing started, for the document times
+     */
+    private void indexChunks(long startTime) {
+        WebsiteLineParser lineParser = new WebsiteLineParser();
+        try {
+            DataChunk chunk;
+            while ((chunk = chunks.take()) != END_OF_INPUT) {
+                try {
+                    if (failure == null)
+                        indexer.indexChunk(chunk, lineParser, startTime);
+                } catch (IOException | RuntimeException e) {
+                    failure = e;
+                } finally {
+                    synchronized (idleLock) {
+                        chunksInProgress--;
+                        idleLock.notifyAll();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package IndexPackage;
+
+import org.json.simple.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class records a distribution of latencies in nanoseconds in the style of an HDR
+ * histogram. Values are counted in buckets that are linear within each power of two,
+ * so every value is kept to within about 3% no matter how large it is, in a fixed
+ * amount of memory. Recording is lock-free, so every indexing thread can record into
+ * the same histogram.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NUM_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_KEYS = {"p50Micros", "p90Micros",
+            "p99Micros", "p999Micros"};
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one latency.
+     * @param nanos The latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        counts.incrementAndGet(bucketIndex(nanos));
+        totalCount.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Retrieves the number of latencies recorded.
+     * @return The number of latencies
+     */
+    public long getCount() { return totalCount.sum(); }
+
+    /**
+     * Retrieves the sum of all the latencies recorded.
+     * @return The total time in nanoseconds
+     */
+    public long getTotalNanos() { return totalNanos.sum(); }
+
+    /**
+     * Retrieves the latency that the given percentage of the recorded latencies are at
+     * or below. The value is the upper end of its bucket.
+     * @param percentile The percentage, from 0 to 100
+     * @return The latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(bucketUpperBound(i), maxNanos.get());
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * Creates the JSON summary of the histogram with the count, total and mean time,
+     * the percentiles and the maximum.
+     * @return The summary as a JSON object
+     */
+    @SuppressWarnings("unchecked")
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        long count = getCount();
+        json.put("count", count);
+        json.put("totalMillis", getTotalNanos() / NANOS_PER_MILLI);
+        json.put("meanMicros", (count == 0) ? 0 :
+                getTotalNanos() / NANOS_PER_MICRO / count);
+        for (int i = 0; i < PERCENTILES.length; i++)
+            json.put(PERCENTILE_KEYS[i], getPercentile(PERCENTILES[i]) / NANOS_PER_MICRO);
+        json.put("maxMicros", maxNanos.get() / NANOS_PER_MICRO);
+        return json;
+    }
+
+    /**
+     * Finds the bucket of a value. Values below the number of sub-buckets have a bucket
+     * each; above that, each power of two is split into the same number of buckets.
+     * @param value The value to find the bucket of
+     * @return The index of the bucket
+     */
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Finds the largest value that falls in a bucket.
+     * @param index The index of the bucket
+     * @return The upper bound of the bucket
+     */
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long lowerBound = (SUB_BUCKETS + subBucket) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
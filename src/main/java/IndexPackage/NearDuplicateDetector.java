@@ -0,0 +1,323 @@
+package IndexPackage;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class finds websites whose text is nearly the same as a website indexed earlier
+ * in the run, such as calendar views, printer-friendly copies and pages of a listing.
+ * The text of each website is reduced to a 64-bit SimHash of its pairs of words, so
+ * pages that share most of their words have fingerprints that differ in only a few
+ * bits. Fingerprints are kept in several locality-sensitive hash tables: the 64 bits
+ * are split into two more blocks than the number of bits two near-duplicates may differ
+ * in, and each table is keyed by the bits of one pair of blocks. Two such fingerprints
+ * agree on at least two whole blocks, so they always share the key of one table, and
+ * only the pages with the same key as the new page are compared with it. Keys of two
+ * blocks have many more values than keys of one, so the comparisons per page stay few
+ * as the run grows.
+ *
+ * Each group of near-duplicates is a cluster, whose id is given by its first website.
+ * Only the first website of each cluster is kept in the tables. Each table is an array
+ * of entry numbers with open addressing, and the tables are only added to or replaced
+ * by larger ones, so indexing threads look up their pages at the same time without a
+ * lock, and only take the lock to add a new cluster.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class NearDuplicateDetector {
+    /** The fingerprint of a text too short to compare with other texts. */
+    static final long NO_FINGERPRINT = 0;
+    static final int MAX_DISTANCE = 8;
+    private static final int MIN_WORDS = 20;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int MIN_TABLE_BITS = 10;
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final int maxDistance;
+    private final long[] tableMasks;
+    //the slots of every table, replaced by larger tables as entries are added
+    private volatile AtomicIntegerArray[] tables;
+    //the fingerprint and cluster id of each entry, in pages that never move
+    private volatile long[][] fingerprintPages = new long[0][];
+    private volatile long[][] clusterPages = new long[0][];
+    private volatile int size;
+
+    /**
+     * Constructs the detector.
+     * @param maxDistance The largest number of bits in which the fingerprints of two
+     *                    near-duplicates may differ, from 0 to MAX_DISTANCE
+     */
+    NearDuplicateDetector(int maxDistance) {
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE)
+            throw new RuntimeException("The near-duplicate distance must be from 0 to " +
+                    MAX_DISTANCE + " bits.");
+        this.maxDistance = maxDistance;
+        int numBlocks = maxDistance + 2;
+        long[] blockMasks = new long[numBlocks];
+        for (int block = 0; block < numBlocks; block++) {
+            int start = block * Long.SIZE / numBlocks;
+            int end = (block + 1) * Long.SIZE / numBlocks;
+            blockMasks[block] = ((end == Long.SIZE) ? -1L : (1L << end) - 1) &
+                    -(1L << start);
+        }
+
+        tableMasks = new long[numBlocks * (numBlocks - 1) / 2];
+        int table = 0;
+        for (int first = 0; first < numBlocks; first++) {
+            for (int second = first + 1; second < numBlocks; second++)
+                tableMasks[table++] = blockMasks[first] | blockMasks[second];
+        }
+        tables = createTables(1 << MIN_TABLE_BITS);
+    }
+
+    /**
+     * Creates empty tables.
+     * @param numSlots The number of slots of each table, a power of two
+     * @return The tables
+     */
+    private AtomicIntegerArray[] createTables(int numSlots) {
+        AtomicIntegerArray[] newTables = new AtomicIntegerArray[tableMasks.length];
+        for (int table = 0; table < newTables.length; table++)
+            newTables[table] = new AtomicIntegerArray(numSlots);
+        return newTables;
+    }
+
+    /**
+     * Computes the SimHash of a text. Every pair of neighbouring words is hashed, and
+     * each bit of the fingerprint is set if most of the pairs have that bit set.
+     * Words are runs of letters and digits, compared without case.
+     * @param text The text of a website
+     * @return The fingerprint of the text, or NO_FINGERPRINT if it has too few words
+     */
+    static long fingerprint(String text) {
+        int[] votes = new int[Long.SIZE];
+        int numWords = 0;
+        long previousWord = 0;
+        long word = FNV_OFFSET_BASIS;
+        boolean inWord = false;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            char c = (i < length) ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word = (word ^ Character.toLowerCase(c)) * FNV_PRIME;
+                inWord = true;
+                continue;
+            }
+            if (!inWord)
+                continue;
+            if (numWords > 0) {
+                long pair = mix(previousWord * 31 + word);
+                for (int bit = 0; bit < Long.SIZE; bit++)
+                    votes[bit] += (int) ((pair >>> bit) & 1) * 2 - 1;
+            }
+            numWords++;
+            previousWord = word;
+            word = FNV_OFFSET_BASIS;
+            inWord = false;
+        }
+        if (numWords < MIN_WORDS)
+            return NO_FINGERPRINT;
+
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (votes[bit] > 0)
+                fingerprint |= 1L << bit;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Spreads the bits of a hash so that every bit of the result depends on every bit
+     * of the input (the finalizer of MurmurHash3).
+     * @param hash The hash to mix
+     * @return The mixed hash
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Finds the cluster of a website that was indexed earlier and whose fingerprint is
+     * within the distance of the given one. If there is none, the website starts a new
+     * cluster with the given id. The tables are searched without the lock; the lock is
+     * only taken to check the websites added during the search and to add this one.
+     * @param fingerprint The fingerprint of the website
+     * @param newClusterId The id of the cluster the website starts if it is new
+     * @return The id of the cluster of the website, which is newClusterId unless the
+     *         website is a near-duplicate
+     */
+    long findOrAdd(long fingerprint, long newClusterId) {
+        //every entry before this size is in the tables read after it
+        int searched = size;
+        AtomicIntegerArray[] current = tables;
+        for (int table = 0; table < current.length; table++) {
+            AtomicIntegerArray slots = current[table];
+            int last = slots.length() - 1;
+            int index = slotIndex(fingerprint, table, slots.length());
+            for (int slot = slots.get(index); slot != 0;
+                 slot = slots.get(index = (index + 1) & last)) {
+                //a slot holds the entry plus one, and entries added after the search
+                //started are checked under the lock
+                if (slot <= searched && isNear(slot - 1, fingerprint))
+                    return getCluster(slot - 1);
+            }
+        }
+
+        synchronized (this) {
+            //websites added since the search started may not have been in the tables
+            for (int entry = searched; entry < size; entry++) {
+                if (isNear(entry, fingerprint))
+                    return getCluster(entry);
+            }
+            add(fingerprint, newClusterId);
+            return newClusterId;
+        }
+    }
+
+    /**
+     * Checks if the fingerprint of an entry is within the distance of a fingerprint.
+     * @param entry The number of the entry
+     * @param fingerprint The fingerprint to compare with
+     * @return True if the two fingerprints are near-duplicates; false otherwise.
+     */
+    private boolean isNear(int entry, long fingerprint) {
+        long other = fingerprintPages[entry >>> PAGE_BITS][entry & (PAGE_SIZE - 1)];
+        return Long.bitCount(other ^ fingerprint) <= maxDistance;
+    }
+
+    /**
+     * Retrieves the cluster id of an entry.
+     * @param entry The number of the entry
+     * @return The id of the cluster the entry started
+     */
+    private long getCluster(int entry) {
+        return clusterPages[entry >>> PAGE_BITS][entry & (PAGE_SIZE - 1)];
+    }
+
+    /**
+     * Adds a fingerprint and its cluster as a new entry, then adds the entry to every
+     * table, first building tables of twice the size when they are half full. The size
+     * is raised last, which publishes the entry and its slots to the searches that
+     * start afterwards. Only called while holding the lock.
+     * @param fingerprint The fingerprint to add
+     * @param clusterId The id of the cluster of the fingerprint
+     */
+    private void add(long fingerprint, long clusterId) {
+        int entry = size;
+        int page = entry >>> PAGE_BITS;
+        if (page == fingerprintPages.length) {
+            long[][] fingerprints = Arrays.copyOf(fingerprintPages, page + 1);
+            long[][] clusters = Arrays.copyOf(clusterPages, page + 1);
+            fingerprints[page] = new long[PAGE_SIZE];
+            clusters[page] = new long[PAGE_SIZE];
+            fingerprintPages = fingerprints;
+            clusterPages = clusters;
+        }
+        fingerprintPages[page][entry & (PAGE_SIZE - 1)] = fingerprint;
+        clusterPages[page][entry & (PAGE_SIZE - 1)] = clusterId;
+
+        int numSlots = tables[0].length();
+        if (entry >= numSlots / 2)
+            tables = rebuild(numSlots * 2, entry + 1);
+        else
+            addToTables(tables, entry, fingerprint);
+        size = entry + 1;
+    }
+
+    /**
+     * Builds larger tables holding the given number of entries. The old tables stay as
+     * they are, so searches that already read them are not disturbed.
+     * @param numSlots The number of slots of each new table
+     * @param numEntries The number of entries to put in the new tables
+     * @return The new tables
+     */
+    private AtomicIntegerArray[] rebuild(int numSlots, int numEntries) {
+        AtomicIntegerArray[] newTables = createTables(numSlots);
+        //one table at a time, so the writes stay within the memory of one table
+        for (int table = 0; table < newTables.length; table++) {
+            for (int entry = 0; entry < numEntries; entry++)
+                addToTable(newTables[table], table, entry, fingerprintPages[
+                        entry >>> PAGE_BITS][entry & (PAGE_SIZE - 1)]);
+        }
+        return newTables;
+    }
+
+    /**
+     * Adds an entry to every table.
+     * @param targetTables The tables to add to
+     * @param entry The number of the entry
+     * @param fingerprint The fingerprint of the entry
+     */
+    private void addToTables(AtomicIntegerArray[] targetTables, int entry,
+                             long fingerprint) {
+        for (int table = 0; table < targetTables.length; table++)
+            addToTable(targetTables[table], table, entry, fingerprint);
+    }
+
+    /**
+     * Adds an entry to a table, in the first empty slot from the slot of its key.
+     * Entries are never removed, so every entry with the same key as a fingerprint is
+     * between the slot of the key and the next empty slot. A slot holds the entry
+     * number plus one, so an empty slot is zero.
+     * @param slots The slots of the table
+     * @param table The number of the table
+     * @param entry The number of the entry
+     * @param fingerprint The fingerprint of the entry
+     */
+    private void addToTable(AtomicIntegerArray slots, int table, int entry,
+                            long fingerprint) {
+        int last = slots.length() - 1;
+        int index = slotIndex(fingerprint, table, slots.length());
+        while (slots.get(index) != 0)
+            index = (index + 1) & last;
+        //the write of the size after this makes the slot visible to searches
+        slots.lazySet(index, entry + 1);
+    }
+
+    /**
+     * Finds the slot of the key of a fingerprint in a table, from the bits of the pair
+     * of blocks of the table.
+     * @param fingerprint The fingerprint
+     * @param table The number of the table
+     * @param numSlots The number of slots of the table, a power of two
+     * @return The index of the slot
+     */
+    private int slotIndex(long fingerprint, int table, int numSlots) {
+        return (int) (mix(fingerprint & tableMasks[table]) >>>
+                (Long.SIZE - Integer.numberOfTrailingZeros(numSlots)));
+    }
+
+    /**
+     * Counts the bytes of a text in UTF-8 without encoding it.
+     * @param text The text
+     * @return The number of bytes of the text in UTF-8
+     */
+    static long utf8Length(String text) {
+        long length = 0;
+        int numChars = text.length();
+        for (int i = 0; i < numChars; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80)
+                length++;
+            else if (c < 0x800)
+                length += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < numChars &&
+                    Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            }
+            else
+                length += 3;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,86 @@
+package IndexPackage;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * This class looks up the content hash of a website in the index as it was before the
+ * current run, so that an incremental run can skip pages that have not changed. Pages
+ * are found by their url term and the hash is read from the doc values of the page. A
+ * lookup does not share any state, so it can be called from every indexing thread.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class PageHashLookup implements Closeable {
+    private final DirectoryReader reader;
+    private final String urlField;
+    private final String hashField;
+
+    /**
+     * Opens the last commit of the index for lookups.
+     * @param indexDirectory The directory of the existing index
+     * @param urlField The field holding the url of the website
+     * @param hashField The doc values field holding the content hash
+     * @throws IOException
+     */
+    PageHashLookup(Directory indexDirectory, String urlField, String hashField)
+            throws IOException {
+        reader = DirectoryReader.open(indexDirectory);
+        this.urlField = urlField;
+        this.hashField = hashField;
+    }
+
+    /**
+     * Checks if the index already holds the website with the same content.
+     * @param url The url of the website
+     * @param hash The content hash of the website from this run
+     * @return True if the indexed page has the same hash; false if the page is new or
+     * changed.
+     * @throws IOException
+     */
+    boolean isUnchanged(String url, long hash) throws IOException {
+        BytesRef term = new BytesRef(url);
+        for (LeafReaderContext context : reader.leaves()) {
+            LeafReader leaf = context.reader();
+            Terms terms = leaf.terms(urlField);
+            if (terms == null)
+                continue;
+            TermsEnum termsEnum = terms.iterator();
+            if (!termsEnum.seekExact(term))
+                continue;
+
+            Bits liveDocs = leaf.getLiveDocs();
+            PostingsEnum postings = termsEnum.postings(null, PostingsEnum.NONE);
+            for (int doc = postings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS;
+                 doc = postings.nextDoc()) {
+                if (liveDocs != null && !liveDocs.get(doc))
+                    continue;
+                NumericDocValues hashes = leaf.getNumericDocValues(hashField);
+                return hashes != null && hashes.advanceExact(doc) &&
+                        hashes.longValue() == hash;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Closes the reader of the existing index.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException { reader.close(); }
+}
@@ -0,0 +1,72 @@
+package IndexPackage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class collects the lines of the .data files that cannot be indexed, such as
+ * lines that are not valid JSON or that are missing the text, title or url, so that
+ * one bad line does not stop the whole run. The lines are appended unchanged to the
+ * quarantine file, which is itself a .data file that can be fixed and indexed later.
+ * The file is only created once the first bad line is found.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class QuarantineFile {
+    private static final ByteBuffer LINE_BREAK = ByteBuffer.wrap(new byte[] {'\n'});
+    private final File file;
+    private FileChannel channel;
+    private long numLines;
+
+    /**
+     * Constructs the quarantine for the given file.
+     * @param file The file that bad lines are appended to
+     */
+    QuarantineFile(File file) { this.file = file; }
+
+    /**
+     * Appends a line of a chunk to the quarantine file and reports where it came from.
+     * @param chunk The chunk holding the line
+     * @param start The index of the first byte of the line in the chunk
+     * @param end The index after the last byte of the line in the chunk
+     * @param reason The reason the line could not be indexed
+     * @throws IOException
+     */
+    synchronized void add(DataChunk chunk, int start, int end, String reason)
+            throws IOException {
+        if (channel == null)
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        ByteBuffer line = chunk.getBytes().duplicate();
+        line.limit(end).position(start);
+        while (line.hasRemaining())
+            channel.write(line);
+        channel.write(LINE_BREAK.duplicate());
+        numLines++;
+        System.out.println("Skipped line at byte " + (chunk.getOffset() + start) +
+                " of " + chunk.getFile().getName() + ": " + reason);
+    }
+
+    /**
+     * Retrieves the number of lines quarantined during the run.
+     * @return The number of bad lines
+     */
+    synchronized long getNumLines() { return numLines; }
+
+    /**
+     * Closes the quarantine file and reports the bad lines, if there were any.
+     * @throws IOException
+     */
+    synchronized void close() throws IOException {
+        if (channel == null)
+            return;
+        channel.close();
+        System.out.println(numLines + " line(s) could not be indexed and were saved " +
+                "to " + file.getAbsolutePath());
+    }
+}
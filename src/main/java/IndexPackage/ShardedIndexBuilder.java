@@ -0,0 +1,260 @@
+package IndexPackage;
+
+import GraphPackage.DocTimeSeriesReader;
+import GraphPackage.DocTimeSeriesWriter;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * This class builds the index as several shards at once. The data files are split into
+ * shards of about the same total size, and each shard is indexed into its own directory
+ * by an independent Indexer and IndexWriter on its own thread, so the build uses every
+ * core and each writer keeps its own small RAM buffer and merges. The shards are then
+ * either combined into the index directory with addIndexes, optionally force-merged to
+ * a target number of segments, or kept as separate indexes in the index directory so
+ * they can be searched together.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class ShardedIndexBuilder {
+    public static final String SHARD_PREFIX = "shard";
+    private static final String TEMP_SHARD_SUFFIX = "_shards";
+    private final String indexDirectoryPath;
+    private final IndexerSettings settings;
+    private long numBytes;
+
+    /**
+     * Constructs the builder for the given index directory and settings.
+     * @param indexDirectoryPath The directory path for the resulting indexing files
+     * @param settings The settings for the run, including the number of shards
+     */
+    public ShardedIndexBuilder(String indexDirectoryPath, IndexerSettings settings) {
+        this.indexDirectoryPath = indexDirectoryPath;
+        this.settings = settings;
+    }
+
+    /**
+     * Indexes the given files into shards and combines or keeps the shards.
+     * @param fileList The list of files to index
+     * @return The number of documents indexed across the shards
+     * @throws IOException
+     */
+    public long build(File[] fileList) throws IOException {
+        List<File[]> shards = splitFiles(fileList, settings.getNumShards());
+        String shardRoot = settings.isKeepShards() ? indexDirectoryPath :
+                indexDirectoryPath + TEMP_SHARD_SUFFIX;
+        String[] shardPaths = new String[shards.size()];
+        for (int i = 0; i < shardPaths.length; i++)
+            shardPaths[i] = Paths.get(shardRoot, SHARD_PREFIX + i).toString();
+
+        long numDocuments = indexShards(shards, shardPaths);
+        if (settings.isKeepShards()) {
+            System.out.println(shardPaths.length + " shards were kept separate in " +
+                    shardRoot);
+        }
+        else {
+            mergeShards(shardPaths);
+            deleteDirectory(Paths.get(shardRoot));
+        }
+        return numDocuments;
+    }
+
+    /**
+     * Retrieves the number of bytes of data read across the shards by the last build.
+     * @return The bytes read from the data files
+     */
+    public long getNumBytes() { return numBytes; }
+
+    /**
+     * Indexes each shard with its own Indexer, all at the same time. If any shard fails,
+     * the error is thrown once every shard has stopped, before the shards are merged.
+     * @param shards The files of each shard
+     * @param shardPaths The index directory path of each shard
+     * @return The number of documents indexed across the shards
+     * @throws IOException
+     */
+    private long indexShards(List<File[]> shards, String[] shardPaths)
+            throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(shards.size());
+        List<Future<Indexer>> results = new ArrayList<>();
+        File[] timeFiles = new File[shards.size()];
+        for (int i = 0; i < shards.size(); i++) {
+            File[] shardFiles = shards.get(i);
+            String shardPath = shardPaths[i];
+            IndexerSettings shardSettings = settings.copy();
+            shardSettings.setQuarantinePath(shardFilePath(settings.getQuarantinePath(), i));
+            shardSettings.setMetricsPath(shardFilePath(settings.getMetricsPath(), i));
+            shardSettings.setTimesPath(shardFilePath(settings.getTimesPath(), i));
+            timeFiles[i] = new File(shardSettings.getTimesPath());
+            System.out.println("Indexing " + shardFiles.length + " file(s) into " +
+                    shardPath);
+            results.add(pool.submit(() -> new Indexer(shardFiles, shardPath,
+                    shardSettings)));
+        }
+        pool.shutdown();
+
+        long numDocuments = 0;
+        IOException failure = null;
+        try {
+            for (int i = 0; i < results.size(); i++) {
+                Indexer indexer = results.get(i).get();
+                if (indexer.getFailure() != null && failure == null)
+                    failure = new IOException("Error with indexing shard " + i + " into " +
+                            shardPaths[i], indexer.getFailure());
+                numDocuments += indexer.getNumDocuments();
+                numBytes += indexer.getMetrics().getBytes();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IOException("Indexing the shards was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error with indexing a shard", e.getCause());
+        }
+        //the shards are left in place, and not merged, so the failure can be looked at
+        if (failure != null)
+            throw failure;
+        mergeDocTimes(timeFiles);
+        return numDocuments;
+    }
+
+    /**
+     * Combines the document times of the shards into the document times file of the
+     * settings, in order, and deletes the files of the shards. A resumed build adds them
+     * after the times of the run it resumes.
+     * @param timeFiles The document times file of each shard
+     * @throws IOException
+     */
+    private void mergeDocTimes(File[] timeFiles) throws IOException {
+        long[][] shardTimes = new long[timeFiles.length][];
+        int total = 0;
+        for (int i = 0; i < timeFiles.length; i++) {
+            shardTimes[i] = timeFiles[i].exists() ?
+                    DocTimeSeriesReader.readAll(timeFiles[i]) : new long[0];
+            total += shardTimes[i].length;
+        }
+        long[] times = new long[total];
+        int position = 0;
+        for (long[] shard : shardTimes) {
+            System.arraycopy(shard, 0, times, position, shard.length);
+            position += shard.length;
+        }
+        Arrays.sort(times);
+
+        try (DocTimeSeriesWriter writer = new DocTimeSeriesWriter(
+                new File(settings.getTimesPath()), settings.isResume())) {
+            for (long time : times)
+                writer.append(time);
+        }
+        for (File timeFile : timeFiles)
+            Files.deleteIfExists(timeFile.toPath());
+    }
+
+    /**
+     * Creates the path of a file that each shard writes its own copy of, by putting
+     * the shard name in front of the file name.
+     * @param path The path of the file for a single index
+     * @param shard The number of the shard
+     * @return The path of the file for the shard
+     */
+    private static String shardFilePath(String path, int shard) {
+        File file = new File(path);
+        return new File(file.getParentFile(), SHARD_PREFIX + shard + "-" +
+                file.getName()).getPath();
+    }
+
+    /**
+     * Adds the shards to the index directory and force-merges the result if a target
+     * number of segments was given.
+     * @param shardPaths The index directory path of each shard
+     * @throws IOException
+     */
+    private void mergeShards(String[] shardPaths) throws IOException {
+        System.out.println("Merging " + shardPaths.length + " shards into " +
+                indexDirectoryPath);
+        Directory[] shardDirectories = new Directory[shardPaths.length];
+        try (Directory indexDirectory = FSDirectory.open(Paths.get(indexDirectoryPath));
+             IndexWriter writer = new IndexWriter(indexDirectory,
+                     settings.getProfile().createConfig(new StandardAnalyzer()))) {
+            for (int i = 0; i < shardPaths.length; i++)
+                shardDirectories[i] = FSDirectory.open(Paths.get(shardPaths[i]));
+            writer.addIndexes(shardDirectories);
+            if (settings.getMaxSegments() > 0)
+                writer.forceMerge(settings.getMaxSegments());
+        } finally {
+            for (Directory directory : shardDirectories) {
+                if (directory != null)
+                    directory.close();
+            }
+        }
+    }
+
+    /**
+     * Splits the files into at most the given number of shards with about the same
+     * total size, by giving each file from largest to smallest to the smallest shard.
+     * @param fileList The list of files to split
+     * @param numShards The number of shards to aim for
+     * @return The files of each shard; no shard is empty
+     */
+    static List<File[]> splitFiles(File[] fileList, int numShards) {
+        File[] sortedFiles = fileList.clone();
+        Arrays.sort(sortedFiles, Comparator.comparingLong(File::length).reversed());
+
+        int count = Math.min(numShards, sortedFiles.length);
+        List<List<File>> shards = new ArrayList<>();
+        long[] shardSizes = new long[count];
+        for (int i = 0; i < count; i++)
+            shards.add(new ArrayList<>());
+        for (File file : sortedFiles) {
+            int smallest = 0;
+            for (int i = 1; i < count; i++) {
+                if (shardSizes[i] < shardSizes[smallest])
+                    smallest = i;
+            }
+            shards.get(smallest).add(file);
+            shardSizes[smallest] += file.length();
+        }
+
+        List<File[]> result = new ArrayList<>();
+        for (List<File> shard : shards)
+            result.add(shard.toArray(new File[0]));
+        return result;
+    }
+
+    /**
+     * Deletes a directory and everything in it.
+     * @param directory The directory to delete
+     * @throws IOException
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory))
+            return;
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.forEach(paths::add);
+        }
+        Collections.reverse(paths); //files before the directories holding them
+        for (Path path : paths)
+            Files.delete(path);
+    }
+}
@@ -0,0 +1,260 @@
+package IndexPackage;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiBits;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.MultiTerms;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.suggest.InputIterator;
+import org.apache.lucene.search.suggest.fst.WFSTCompletionLookup;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class builds the suggester that completes queries as they are typed. It reads an
+ * index that was already built, collects every page title and every term of the title
+ * and text fields that appears in enough documents, and weights each one by the number
+ * of documents it appears in. The completions are compiled into a weighted finite state
+ * transducer (FST), which the query searcher loads to find the best completions of a
+ * prefix in well under a millisecond without searching the index. The FST is saved in
+ * the index directory next to the index files.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class SuggesterBuilder {
+    public static final String SUGGEST_FILENAME = "suggest.fst";
+    private static final String INDEX_DIR = "Index_Files";
+    private static final String TEMP_PREFIX = "suggest";
+    private static final String[] JSON_KEYS = {"text", "title", "url"};
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_TITLE_LENGTH = 100;
+    private final int minDocFreq;
+
+    /**
+     * Constructs the builder.
+     * @param minDocFreq The number of documents a term must appear in to be suggested
+     */
+    public SuggesterBuilder(int minDocFreq) {
+        this.minDocFreq = minDocFreq;
+    }
+
+    /**
+     * Builds the suggester for an index and saves it in the index directory. The index
+     * may be a single index or a directory of kept shards.
+     * @param indexDirectoryPath The directory path of the Lucene index files
+     * @return The number of completions in the suggester
+     * @throws IOException
+     */
+    public long build(String indexDirectoryPath) throws IOException {
+        long start = System.currentTimeMillis();
+        Path indexPath = Paths.get(indexDirectoryPath);
+        List<Directory> directories = new ArrayList<>();
+        Map<String, Long> weights = new HashMap<>();
+        try (IndexReader reader = openReader(indexPath, directories)) {
+            addTerms(reader, JSON_KEYS[0], weights);
+            addTerms(reader, JSON_KEYS[1], weights);
+            addTitles(reader, weights);
+        } finally {
+            for (Directory directory : directories)
+                directory.close();
+        }
+
+        WFSTCompletionLookup lookup;
+        try (Directory tempDirectory = FSDirectory.open(indexPath)) {
+            lookup = new WFSTCompletionLookup(tempDirectory, TEMP_PREFIX);
+            lookup.build(new WeightIterator(weights));
+        }
+        save(lookup, indexPath.resolve(SUGGEST_FILENAME));
+        System.out.println(String.format("Suggester with %d completions (%.1f KB) was " +
+                "built in %.1f s", lookup.getCount(), lookup.ramBytesUsed() / 1024.0,
+                (System.currentTimeMillis() - start) / 1000.0));
+        return lookup.getCount();
+    }
+
+    /**
+     * Opens a reader over the whole index. If the indexer kept its shards separate, the
+     * index directory holds one index per shard, which are read together as one.
+     * @param indexPath The path of the index directory
+     * @param directories The list the opened directories are added to, to close later
+     * @return The reader of the index
+     * @throws IOException
+     */
+    private static IndexReader openReader(Path indexPath, List<Directory> directories)
+            throws IOException {
+        Directory indexDirectory = FSDirectory.open(indexPath);
+        directories.add(indexDirectory);
+        if (DirectoryReader.indexExists(indexDirectory))
+            return DirectoryReader.open(indexDirectory);
+
+        List<IndexReader> shards = new ArrayList<>();
+        File[] shardDirs = indexPath.toFile().listFiles(file -> file.isDirectory() &&
+                file.getName().startsWith(ShardedIndexBuilder.SHARD_PREFIX));
+        if (shardDirs != null) {
+            for (File shardDir : shardDirs) {
+                Directory shardDirectory = FSDirectory.open(shardDir.toPath());
+                directories.add(shardDirectory);
+                if (DirectoryReader.indexExists(shardDirectory))
+                    shards.add(DirectoryReader.open(shardDirectory));
+            }
+        }
+        if (shards.isEmpty())
+            throw new IOException("No index was found in " + indexPath);
+        return new MultiReader(shards.toArray(new IndexReader[0]), true);
+    }
+
+    /**
+     * Adds the terms of a field that appear in enough documents, weighted by the number
+     * of documents they appear in.
+     * @param reader The reader of the index
+     * @param field The field whose terms are added
+     * @param weights The weight of each completion, added to
+     * @throws IOException
+     */
+    private void addTerms(IndexReader reader, String field, Map<String, Long> weights)
+            throws IOException {
+        Terms terms = MultiTerms.getTerms(reader, field);
+        if (terms == null)
+            return;
+        TermsEnum termsEnum = terms.iterator();
+        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+            int docFreq = termsEnum.docFreq();
+            if (docFreq < minDocFreq)
+                continue;
+            String text = term.utf8ToString();
+            if (text.length() >= MIN_TERM_LENGTH)
+                weights.merge(text, (long) docFreq, Math::max);
+        }
+    }
+
+    /**
+     * Adds the title of every live document, weighted by the number of documents with
+     * the same title. Only the title is loaded from the stored fields of each document.
+     * @param reader The reader of the index
+     * @param weights The weight of each completion, added to
+     * @throws IOException
+     */
+    private static void addTitles(IndexReader reader, Map<String, Long> weights)
+            throws IOException {
+        Map<String, Long> titleCounts = new HashMap<>();
+        Bits liveDocs = MultiBits.getLiveDocs(reader);
+        for (int docId = 0; docId < reader.maxDoc(); docId++) {
+            if (liveDocs != null && !liveDocs.get(docId))
+                continue;
+            DocumentStoredFieldVisitor visitor = new DocumentStoredFieldVisitor(
+                    JSON_KEYS[1]);
+            reader.document(docId, visitor);
+            Document doc = visitor.getDocument();
+            String title = normalize(doc.get(JSON_KEYS[1]));
+            if (!title.isEmpty() && title.length() <= MAX_TITLE_LENGTH)
+                titleCounts.merge(title, 1L, Long::sum);
+        }
+        for (Map.Entry<String, Long> title : titleCounts.entrySet())
+            weights.merge(title.getKey(), title.getValue(), Math::max);
+    }
+
+    /**
+     * Lowercases a title and collapses its whitespace and control characters into
+     * single spaces, the same way the query searcher treats a prefix.
+     * @param title The title of a document, or null if it has none
+     * @return The normalized title
+     */
+    private static String normalize(String title) {
+        if (title == null)
+            return "";
+        return title.replaceAll("[\\s\\p{Cntrl}]+", " ").trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Saves the suggester to its file. The file is written under a temporary name first
+     * so that a searcher never loads a partial file.
+     * @param lookup The built suggester
+     * @param path The path of the suggester file
+     * @throws IOException
+     */
+    private static void save(WFSTCompletionLookup lookup, Path path) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream output = Files.newOutputStream(tempPath)) {
+            lookup.store(output);
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Builds the suggester for an existing index. Accepts the index directory (default
+     * Index_Files) and the option --suggest-min-df=N.
+     * @param args The index directory and options, if any
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        IndexerSettings settings = IndexerSettings.parse(args);
+        String indexDirectoryPath = INDEX_DIR;
+        for (String arg : args) {
+            if (!IndexerSettings.isOption(arg))
+                indexDirectoryPath = arg;
+        }
+        new SuggesterBuilder(settings.getSuggestMinDocFreq()).build(indexDirectoryPath);
+    }
+
+    /**
+     * This class gives the completions and their weights to the suggester.
+     */
+    private static class WeightIterator implements InputIterator {
+        private final Iterator<Map.Entry<String, Long>> entries;
+        private long weight;
+
+        /**
+         * Constructs the iterator.
+         * @param weights The weight of each completion
+         */
+        WeightIterator(Map<String, Long> weights) {
+            entries = weights.entrySet().iterator();
+        }
+
+        @Override
+        public BytesRef next() {
+            if (!entries.hasNext())
+                return null;
+            Map.Entry<String, Long> entry = entries.next();
+            weight = Math.min(entry.getValue(), Integer.MAX_VALUE);
+            return new BytesRef(entry.getKey());
+        }
+
+        @Override
+        public long weight() { return weight; }
+
+        @Override
+        public BytesRef payload() { return null; }
+
+        @Override
+        public boolean hasPayloads() { return false; }
+
+        @Override
+        public Set<BytesRef> contexts() { return null; }
+
+        @Override
+        public boolean hasContexts() { return false; }
+    }
+}
@@ -0,0 +1,131 @@
+package IndexPackage;
+
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * This class creates the Lucene document of a website from the fields of its line, with
+ * the fields the settings of the run ask for. It is used by the indexer for every line,
+ * and on its own by the benchmarks to measure building documents without an index.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class WebsiteDocumentBuilder {
+    private static final String[] JSON_KEYS = {"text", "title", "url"};
+    private static final String HASH_FIELD = "hash";
+    private static final String CLUSTER_FIELD = "cluster";
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final FieldType TEXT_WITH_OFFSETS = createTextWithOffsetsType();
+    private final IndexerSettings settings;
+
+    /**
+     * Constructs the builder for the settings of a run.
+     * @param settings The settings, which choose the offsets and doc values to index
+     */
+    public WebsiteDocumentBuilder(IndexerSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Creates an document object representing the fields of the website, as per the
+     * defined json keys: title, text, and url. The content hash is kept in doc values
+     * so that an incremental run can tell if the page has changed. If the settings ask
+     * for offsets, the text is indexed with the offsets of its terms for highlighting,
+     * and if they ask for doc values, the title and url are also kept in doc values so
+     * that result lists can be loaded without the stored text.
+     * @param website The parser holding the fields of the website from its line
+     * @param hash The content hash of the website
+     * @return The document of the website
+     */
+    public Document createWebsiteDocument(WebsiteLineParser website, long hash) {
+        Document doc = new Document();
+        if (settings.isIndexOffsets())
+            doc.add(new Field(JSON_KEYS[0], website.getText(),
+                    TEXT_WITH_OFFSETS)); //text
+        else
+            doc.add(new TextField(JSON_KEYS[0], website.getText(),
+                    Field.Store.YES)); //text
+        doc.add(new TextField(JSON_KEYS[1], website.getTitle(),
+                Field.Store.YES)); //title
+        doc.add(new StringField(JSON_KEYS[2], website.getUrl(),
+                Field.Store.YES)); //url
+        doc.add(new NumericDocValuesField(HASH_FIELD, hash));
+        if (settings.isShortFieldDocValues()) {
+            doc.add(new BinaryDocValuesField(JSON_KEYS[1],
+                    new BytesRef(website.getTitle())));
+            doc.add(new BinaryDocValuesField(JSON_KEYS[2],
+                    new BytesRef(website.getUrl())));
+        }
+        return doc;
+    }
+
+    /**
+     * Adds the id of the cluster of near-duplicate websites a website belongs to, in
+     * doc values, so that the results of a query can be collapsed to one website per
+     * cluster.
+     * @param doc The document of the website
+     * @param clusterId The id of the cluster
+     */
+    public void addCluster(Document doc, long clusterId) {
+        doc.add(new NumericDocValuesField(CLUSTER_FIELD, clusterId));
+    }
+
+    /**
+     * Creates the field type of a stored text field whose postings also hold the start
+     * and end character offsets of each term.
+     * @return The field type for the website text with offsets
+     */
+    private static FieldType createTextWithOffsetsType() {
+        FieldType type = new FieldType(TextField.TYPE_STORED);
+        type.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        type.freeze();
+        return type;
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash of the title and text of a website.
+     * @param title The title of the website
+     * @param text The body text of the website
+     * @return The content hash of the website
+     */
+    public static long contentHash(String title, String text) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hashChars(hash, title);
+        hash = (hash ^ 0xFFFF) * FNV_PRIME; //separates the title from the text
+        return hashChars(hash, text);
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash of the url of a website.
+     * @param url The url of the website
+     * @return The hash of the url
+     */
+    public static long urlHash(String url) {
+        return hashChars(FNV_OFFSET_BASIS, url);
+    }
+
+    /**
+     * Adds the characters of a string to an FNV-1a hash.
+     * @param hash The hash so far
+     * @param value The string to add, which may be null
+     * @return The hash including the string
+     */
+    private static long hashChars(long hash, String value) {
+        if (value == null)
+            return hash;
+        int length = value.length();
+        for (int i = 0; i < length; i++)
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        return hash;
+    }
+}
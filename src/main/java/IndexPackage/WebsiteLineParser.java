@@ -0,0 +1,424 @@
+package IndexPackage;
+
+import org.json.simple.parser.ParseException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class parses one line of a .data file from our JSoup crawler, where each line is
+ * a JSON object describing a website. Only the text, title and url values are decoded;
+ * every other key is skipped over without being built into an object. The UTF-8 bytes
+ * are read straight from the buffer and decoded into a char buffer that is reused
+ * between lines, so a parser should be kept per thread and used for many lines.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class WebsiteLineParser {
+    private static final String[] JSON_KEYS = {"text", "title", "url"};
+    private static final byte[][] KEY_BYTES = new byte[JSON_KEYS.length][];
+    private static final char REPLACEMENT_CHAR = '\uFFFD';
+    private static final int INITIAL_CHARS = 4096;
+
+    static {
+        for (int i = 0; i < JSON_KEYS.length; i++)
+            KEY_BYTES[i] = JSON_KEYS[i].getBytes(StandardCharsets.UTF_8);
+    }
+
+    private final String[] values = new String[JSON_KEYS.length];
+    private char[] chars = new char[INITIAL_CHARS];
+    private ByteBuffer buffer;
+    private int lineStart;
+    private int pos;
+    private int end;
+
+    /**
+     * Parses the line found between the given positions of the buffer. The position
+     * and limit of the buffer are not changed. Keys that appear more than once keep
+     * their last value, as with the JSON parser used before.
+     * @param buffer The buffer holding the UTF-8 bytes of the line
+     * @param start The index of the first byte of the line
+     * @param end The index after the last byte of the line, without the line break
+     * @return True if a website was parsed; false if the line was blank.
+     * @throws ParseException
+     */
+    public boolean parse(ByteBuffer buffer, int start, int end) throws ParseException {
+        this.buffer = buffer;
+        this.lineStart = start;
+        this.pos = start;
+        this.end = end;
+        for (int i = 0; i < values.length; i++)
+            values[i] = null;
+
+        skipWhitespace();
+        if (pos == end)
+            return false;
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}')
+            pos++;
+        else
+            parseMembers();
+        skipWhitespace();
+        if (pos != end)
+            throw unexpectedChar();
+        return true;
+    }
+
+    /**
+     * Parses a line given as a string, for callers that do not read from a buffer.
+     * @param line The line representing the website in JSON format
+     * @return True if a website was parsed; false if the line was blank.
+     * @throws ParseException
+     */
+    public boolean parse(String line) throws ParseException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return parse(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    /**
+     * Retrieves the text of the website from the last parsed line.
+     * @return The body text of the website, or null if it was missing
+     */
+    public String getText() { return values[0]; }
+
+    /**
+     * Retrieves the title of the website from the last parsed line.
+     * @return The title of the website, or null if it was missing
+     */
+    public String getTitle() { return values[1]; }
+
+    /**
+     * Retrieves the url of the website from the last parsed line.
+     * @return The url of the website, or null if it was missing
+     */
+    public String getUrl() { return values[2]; }
+
+    /**
+     * Parses the key and value pairs of the object up to and including the closing
+     * brace. Values of keys that are not needed are skipped.
+     * @throws ParseException
+     */
+    private void parseMembers() throws ParseException {
+        while (true) {
+            skipWhitespace();
+            expect('"');
+            int key = readKey();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if (key >= 0 && peek() == '"') {
+                pos++;
+                values[key] = readString();
+            }
+            else {
+                if (key >= 0)
+                    values[key] = null;
+                skipValue();
+            }
+            skipWhitespace();
+            byte c = next();
+            if (c == '}')
+                return;
+            if (c != ',') {
+                pos--;
+                throw unexpectedChar();
+            }
+        }
+    }
+
+    /**
+     * Reads a key after its opening quote and finds which of the needed keys it is.
+     * Keys are compared as raw bytes unless they contain an escape.
+     * @return The index of the key in JSON_KEYS, or -1 if the key is not needed
+     * @throws ParseException
+     */
+    private int readKey() throws ParseException {
+        int keyStart = pos;
+        boolean escaped = false;
+        byte c;
+        while ((c = next()) != '"') {
+            if (c == '\\') {
+                escaped = true;
+                next();
+            }
+        }
+        int keyEnd = pos - 1;
+
+        if (escaped) {
+            pos = keyStart;
+            String key = readString();
+            for (int i = 0; i < JSON_KEYS.length; i++) {
+                if (JSON_KEYS[i].equals(key))
+                    return i;
+            }
+            return -1;
+        }
+        for (int i = 0; i < KEY_BYTES.length; i++) {
+            if (matches(KEY_BYTES[i], keyStart, keyEnd))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if the bytes of the buffer in the given range equal the given key.
+     * @param key The bytes of the key
+     * @param from The index of the first byte to compare
+     * @param to The index after the last byte to compare
+     * @return True if the bytes are the same; false otherwise.
+     */
+    private boolean matches(byte[] key, int from, int to) {
+        if (to - from != key.length)
+            return false;
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(from + i) != key[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads a string value after its opening quote, decoding the UTF-8 bytes and the
+     * JSON escapes into the reused char buffer.
+     * @return The decoded string
+     * @throws ParseException
+     */
+    private String readString() throws ParseException {
+        //a byte never decodes to more than one char, so this is enough for the string
+        if (chars.length < end - pos)
+            chars = new char[Math.max(end - pos, chars.length * 2)];
+
+        int length = 0;
+        while (true) {
+            byte c = next();
+            if (c == '"')
+                return new String(chars, 0, length);
+            if (c == '\\')
+                chars[length++] = readEscape();
+            else if (c >= 0)
+                chars[length++] = (char) c;
+            else
+                length = decodeMultiByte(c, length);
+        }
+    }
+
+    /**
+     * Reads the character after a backslash in a string.
+     * @return The character the escape stands for
+     * @throws ParseException
+     */
+    private char readEscape() throws ParseException {
+        byte c = next();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(next(), 16);
+                    if (digit < 0) {
+                        pos--;
+                        throw unexpectedChar();
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                pos--;
+                throw unexpectedChar();
+        }
+    }
+
+    /**
+     * Decodes a UTF-8 sequence of two to four bytes into the char buffer. Characters
+     * outside the Basic Multilingual Plane become a surrogate pair. Malformed
+     * sequences become the replacement character, as with the previous reader.
+     * @param lead The first byte of the sequence
+     * @param length The number of chars decoded so far
+     * @return The number of chars decoded after this sequence
+     */
+    private int decodeMultiByte(byte lead, int length) {
+        int b = lead & 0xFF;
+        int count;
+        int min;
+        int codePoint;
+        if (b >= 0xC2 && b <= 0xDF) {
+            count = 1;
+            min = 0x80;
+            codePoint = b & 0x1F;
+        }
+        else if (b >= 0xE0 && b <= 0xEF) {
+            count = 2;
+            min = 0x800;
+            codePoint = b & 0x0F;
+        }
+        else if (b >= 0xF0 && b <= 0xF4) {
+            count = 3;
+            min = 0x10000;
+            codePoint = b & 0x07;
+        }
+        else {
+            chars[length] = REPLACEMENT_CHAR;
+            return length + 1;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int cont = (pos < end) ? buffer.get(pos) & 0xFF : 0;
+            if ((cont & 0xC0) != 0x80) {
+                chars[length] = REPLACEMENT_CHAR;
+                return length + 1;
+            }
+            codePoint = (codePoint << 6) | (cont & 0x3F);
+            pos++;
+        }
+
+        if (codePoint < min || codePoint > Character.MAX_CODE_POINT ||
+                (codePoint >= Character.MIN_SURROGATE &&
+                        codePoint <= Character.MAX_SURROGATE))
+            chars[length++] = REPLACEMENT_CHAR;
+        else if (codePoint >= 0x10000) {
+            chars[length++] = Character.highSurrogate(codePoint);
+            chars[length++] = Character.lowSurrogate(codePoint);
+        }
+        else
+            chars[length++] = (char) codePoint;
+        return length;
+    }
+
+    /**
+     * Skips over a value of any type without decoding it. Strings are skipped up to
+     * their closing quote, and objects and arrays up to their matching bracket.
+     * @throws ParseException
+     */
+    private void skipValue() throws ParseException {
+        int depth = 0;
+        do {
+            byte c = next();
+            switch (c) {
+                case '"':
+                    skipString();
+                    break;
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    if (depth == 0) {
+                        pos--;
+                        throw unexpectedChar();
+                    }
+                    depth--;
+                    break;
+                default:
+                    //numbers, literals and separators inside a container
+                    if (depth == 0) {
+                        while (pos < end && !isValueEnd(buffer.get(pos)))
+                            pos++;
+                    }
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Skips a string after its opening quote up to and including the closing quote.
+     * @throws ParseException
+     */
+    private void skipString() throws ParseException {
+        byte c;
+        while ((c = next()) != '"') {
+            if (c == '\\')
+                next();
+        }
+    }
+
+    /**
+     * Checks if a byte ends a number or literal value.
+     * @param c The byte to check
+     * @return True if the byte comes after the value; false otherwise.
+     */
+    private static boolean isValueEnd(byte c) {
+        return c == ',' || c == '}' || c == ']' || isWhitespace(c);
+    }
+
+    /**
+     * Checks if a byte is JSON whitespace.
+     * @param c The byte to check
+     * @return True if the byte is whitespace; false otherwise.
+     */
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    /** Moves past any whitespace at the current position. */
+    private void skipWhitespace() {
+        while (pos < end && isWhitespace(buffer.get(pos)))
+            pos++;
+    }
+
+    /**
+     * Moves past the expected byte at the current position.
+     * @param expected The byte that must come next
+     * @throws ParseException
+     */
+    private void expect(char expected) throws ParseException {
+        if (peek() != expected)
+            throw unexpectedChar();
+        pos++;
+    }
+
+    /**
+     * Retrieves the byte at the current position without moving past it.
+     * @return The byte at the current position
+     * @throws ParseException
+     */
+    private byte peek() throws ParseException {
+        if (pos >= end)
+            throw unexpectedEnd();
+        return buffer.get(pos);
+    }
+
+    /**
+     * Retrieves the byte at the current position and moves past it.
+     * @return The byte at the current position
+     * @throws ParseException
+     */
+    private byte next() throws ParseException {
+        if (pos >= end)
+            throw unexpectedEnd();
+        return buffer.get(pos++);
+    }
+
+    /**
+     * Creates the error for an unexpected character at the current position.
+     * @return The exception to throw
+     */
+    private ParseException unexpectedChar() {
+        return new ParseException(pos - lineStart, ParseException.ERROR_UNEXPECTED_CHAR,
+                (char) (buffer.get(pos) & 0xFF));
+    }
+
+    /**
+     * Creates the error for a line that ends in the middle of the JSON object.
+     * @return The exception to throw
+     */
+    private ParseException unexpectedEnd() {
+        return new ParseException(pos - lineStart, ParseException.ERROR_UNEXPECTED_TOKEN,
+                null);
+    }
+}
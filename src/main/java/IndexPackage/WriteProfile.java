@@ -0,0 +1,156 @@
+package IndexPackage;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.TieredMergePolicy;
+
+/**
+ * This enum holds the named IndexWriter configurations the indexer can run with. Each
+ * profile sets how much the writer buffers before flushing a segment, how segments are
+ * merged and on how many threads, whether segments are written as compound files, and
+ * how many segments the index is force-merged down to at the end of the run.
+ *
+ * The default profile keeps the Lucene defaults the indexer has always used. The
+ * bulk-load profile flushes rarely and merges wide to get the most documents per
+ * second, the low-memory profile keeps the writer small for machines with little heap,
+ * and the search-optimized profile ends with a single segment for the fastest queries.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public enum WriteProfile {
+    DEFAULT("default", IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB,
+            IndexWriterConfig.DISABLE_AUTO_FLUSH, 10, 10, 5 * 1024, 2, 0, 0, true, 0),
+    BULK_LOAD("bulk-load", 256, IndexWriterConfig.DISABLE_AUTO_FLUSH, 20, 20, 5 * 1024,
+            64, Math.max(1, Math.min(4, availableCores() / 2)), 0, false, 0),
+    LOW_MEMORY("low-memory", 8, 1000, 10, 5, 1024, 2, 1, 2, true, 0),
+    SEARCH_OPTIMIZED("search-optimized", 64, IndexWriterConfig.DISABLE_AUTO_FLUSH, 5, 10,
+            5 * 1024, 2, 0, 0, false, 1);
+
+    private final String name;
+    private final double ramBufferSizeMB;
+    private final int maxBufferedDocs;
+    private final double segmentsPerTier;
+    private final int maxMergeAtOnce;
+    private final double maxMergedSegmentMB;
+    private final double floorSegmentMB;
+    private final int mergeThreads;
+    private final int maxMergeCount;
+    private final boolean compoundFiles;
+    private final int forceMergeSegments;
+
+    /**
+     * Constructs a profile.
+     * @param name The name of the profile on the command line
+     * @param ramBufferSizeMB The MB of buffered documents that triggers a flush
+     * @param maxBufferedDocs The number of buffered documents that triggers a flush, or
+     *                        DISABLE_AUTO_FLUSH to only flush by RAM usage
+     * @param segmentsPerTier The number of segments allowed per tier before merging
+     * @param maxMergeAtOnce The number of segments merged at once
+     * @param maxMergedSegmentMB The largest segment a normal merge creates, in MB
+     * @param floorSegmentMB The size that smaller segments are rounded up to, in MB
+     * @param mergeThreads The number of merge threads, or 0 for the Lucene default
+     * @param maxMergeCount The number of merges that may be waiting before flushing
+     *                      threads are stalled, or 0 for the Lucene default
+     * @param compoundFiles True if segments are written as compound files
+     * @param forceMergeSegments The number of segments the index is force-merged to at
+     *                           the end of the run, or 0 for no force merge
+     */
+    WriteProfile(String name, double ramBufferSizeMB, int maxBufferedDocs,
+                 double segmentsPerTier, int maxMergeAtOnce, double maxMergedSegmentMB,
+                 double floorSegmentMB, int mergeThreads, int maxMergeCount,
+                 boolean compoundFiles, int forceMergeSegments) {
+        this.name = name;
+        this.ramBufferSizeMB = ramBufferSizeMB;
+        this.maxBufferedDocs = maxBufferedDocs;
+        this.segmentsPerTier = segmentsPerTier;
+        this.maxMergeAtOnce = maxMergeAtOnce;
+        this.maxMergedSegmentMB = maxMergedSegmentMB;
+        this.floorSegmentMB = floorSegmentMB;
+        this.mergeThreads = mergeThreads;
+        this.maxMergeCount = maxMergeCount;
+        this.compoundFiles = compoundFiles;
+        this.forceMergeSegments = forceMergeSegments;
+    }
+
+    /**
+     * Finds the profile with the given command line name.
+     * @param name The name of the profile
+     * @return The profile with the name
+     */
+    public static WriteProfile fromName(String name) {
+        for (WriteProfile profile : values()) {
+            if (profile.name.equals(name))
+                return profile;
+        }
+        throw new RuntimeException("Unknown write profile \"" + name + "\". Choose " +
+                "default, bulk-load, low-memory or search-optimized.");
+    }
+
+    /**
+     * Creates a new IndexWriter configuration with the settings of the profile. A
+     * configuration can only be used by one writer, so each writer needs its own.
+     * @param analyzer The analyzer for the documents
+     * @return The configuration for the writer
+     */
+    public IndexWriterConfig createConfig(Analyzer analyzer) {
+        return createConfig(analyzer, new ConcurrentMergeScheduler());
+    }
+
+    /**
+     * Creates a new IndexWriter configuration with the settings of the profile, using
+     * the given merge scheduler with the merge threads of the profile.
+     * @param analyzer The analyzer for the documents
+     * @param mergeScheduler A new merge scheduler for the writer
+     * @return The configuration for the writer
+     */
+    public IndexWriterConfig createConfig(Analyzer analyzer,
+                                          ConcurrentMergeScheduler mergeScheduler) {
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setRAMBufferSizeMB(ramBufferSizeMB);
+        config.setMaxBufferedDocs(maxBufferedDocs);
+        config.setUseCompoundFile(compoundFiles);
+
+        TieredMergePolicy mergePolicy = new TieredMergePolicy();
+        mergePolicy.setSegmentsPerTier(segmentsPerTier);
+        mergePolicy.setMaxMergeAtOnce(maxMergeAtOnce);
+        mergePolicy.setMaxMergedSegmentMB(maxMergedSegmentMB);
+        mergePolicy.setFloorSegmentMB(floorSegmentMB);
+        if (!compoundFiles)
+            mergePolicy.setNoCFSRatio(0.0);
+        config.setMergePolicy(mergePolicy);
+
+        if (mergeThreads > 0) {
+            int mergeCount = (maxMergeCount > 0) ? maxMergeCount : mergeThreads + 5;
+            mergeScheduler.setMaxMergesAndThreads(mergeCount, mergeThreads);
+        }
+        if (this == BULK_LOAD)
+            mergeScheduler.disableAutoIOThrottle();
+        config.setMergeScheduler(mergeScheduler);
+        return config;
+    }
+
+    /**
+     * Retrieves the number of segments the index is force-merged to at the end of a
+     * run with this profile.
+     * @return The target number of segments, or 0 for no force merge
+     */
+    public int getForceMergeSegments() { return forceMergeSegments; }
+
+    /**
+     * Retrieves the name of the profile on the command line.
+     * @return The name of the profile
+     */
+    @Override
+    public String toString() { return name; }
+
+    /**
+     * Retrieves the number of cores available to the indexer.
+     * @return The number of available processors
+     */
+    private static int availableCores() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,222 @@
+package QueryPackage;
+
+import IndexPackage.LatencyHistogram;
+import org.apache.lucene.search.IndexSearcher;
+import org.json.simple.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class runs a file of queries in one batch, for relevance evaluations and for
+ * warming caches. The queries are searched on a pool of threads against one searcher,
+ * so every query sees the same version of the index, and the results are written as
+ * JSON lines in the order of the query file while later queries are still running. At
+ * the end, the throughput of the batch and the latency percentiles of its queries are
+ * printed.
+ *
+ * Each line of the query file holds one query. A line may start with the number of
+ * hits for its query followed by a tab; otherwise the default number of hits is used.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class BatchQueryRunner {
+    private static final String DEFAULT_INDEX_DIR = "Index_Files";
+    private static final String DEFAULT_OUTPUT = "batch_results.jsonl";
+    private static final int DEFAULT_NUM_HITS = 10;
+    private static final int QUERIES_IN_FLIGHT_PER_THREAD = 4;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final LuceneQuerySearcher querySearcher;
+    private final int numThreads;
+    private final int defaultNumHits;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Constructs the runner for the given searcher.
+     * @param querySearcher The searcher to run the queries with
+     * @param numThreads The number of queries searched at the same time
+     * @param defaultNumHits The number of hits for a query line without its own
+     */
+    public BatchQueryRunner(LuceneQuerySearcher querySearcher, int numThreads,
+                            int defaultNumHits) {
+        this.querySearcher = querySearcher;
+        this.numThreads = numThreads;
+        this.defaultNumHits = defaultNumHits;
+    }
+
+    /**
+     * Runs every query of the query file and writes one JSON line of results for each
+     * query, in order, to the output file. A query that fails is written with its
+     * error instead of results, and the batch continues.
+     * @param queryFile The file with one query per line
+     * @param outputFile The JSON lines file to write
+     * @return The number of queries that were run
+     * @throws IOException
+     */
+    public long run(File queryFile, File outputFile) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+        IndexSearcher searcher = querySearcher.acquireSearcher();
+        ArrayDeque<Future<String>> inFlight = new ArrayDeque<>();
+        int maxInFlight = numThreads * QUERIES_IN_FLIGHT_PER_THREAD;
+        long numQueries = 0;
+        long startTime = System.nanoTime();
+        try (BufferedReader reader = Files.newBufferedReader(queryFile.toPath(),
+                StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(outputFile.toPath(),
+                     StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty())
+                    continue;
+                long lineNumber = ++numQueries;
+                String queryLine = line;
+                inFlight.add(pool.submit(() ->
+                        runQuery(searcher, lineNumber, queryLine)));
+                if (inFlight.size() >= maxInFlight)
+                    writeResult(writer, inFlight.poll());
+            }
+            while (!inFlight.isEmpty())
+                writeResult(writer, inFlight.poll());
+        } finally {
+            pool.shutdownNow();
+            querySearcher.releaseSearcher(searcher);
+        }
+        report(numQueries, System.nanoTime() - startTime);
+        return numQueries;
+    }
+
+    /**
+     * Runs the query of one line of the query file.
+     * @param searcher The searcher shared by the batch
+     * @param lineNumber The number of the query in the file
+     * @param line The line of the query file
+     * @return The JSON line of the results of the query
+     */
+    @SuppressWarnings("unchecked")
+    private String runQuery(IndexSearcher searcher, long lineNumber, String line) {
+        int numHits = defaultNumHits;
+        String query = line;
+        int tab = line.indexOf('\t');
+        if (tab > 0) {
+            try {
+                numHits = Integer.parseInt(line.substring(0, tab).trim());
+                query = line.substring(tab + 1);
+            } catch (NumberFormatException e) {
+                //the tab is part of the query
+            }
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("line", lineNumber);
+        json.put("query", query);
+        json.put("numHits", numHits);
+        long start = System.nanoTime();
+        try {
+            json.put("results", querySearcher.retrieveTopHits(searcher, query, numHits));
+        } catch (Exception e) {
+            json.put("error", e.toString());
+        }
+        long nanos = System.nanoTime() - start;
+        latencies.record(nanos);
+        json.put("latencyMillis", nanos / NANOS_PER_MILLI);
+        return json.toJSONString();
+    }
+
+    /**
+     * Writes the result of the oldest query in flight once it has finished.
+     * @param writer The writer of the output file
+     * @param result The result of the query
+     * @throws IOException
+     */
+    private static void writeResult(BufferedWriter writer, Future<String> result)
+            throws IOException {
+        try {
+            writer.write(result.get());
+            writer.newLine();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The batch of queries was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error with running a query", e.getCause());
+        }
+    }
+
+    /**
+     * Prints the throughput of the batch and the latency percentiles of its queries.
+     * @param numQueries The number of queries that were run
+     * @param elapsedNanos The time the batch took
+     */
+    private void report(long numQueries, long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / NANOS_PER_SECOND;
+        System.out.println(String.format("%d queries in %.2f s on %d thread(s) " +
+                "(%.1f queries/sec)", numQueries, seconds, numThreads,
+                numQueries / seconds));
+        System.out.println(String.format("Latency p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, " +
+                "max %.2f ms", latencies.getPercentile(50) / NANOS_PER_MILLI,
+                latencies.getPercentile(95) / NANOS_PER_MILLI,
+                latencies.getPercentile(99) / NANOS_PER_MILLI,
+                latencies.getPercentile(100) / NANOS_PER_MILLI));
+    }
+
+    /**
+     * Runs a batch of queries from the command line. The query file is the only
+     * argument besides the options --out=PATH (default batch_results.jsonl),
+     * --threads=N (default: the number of cores), --hits=N (default 10) and
+     * --index=PATH (default Index_Files). Any other option is a searcher option, such as
+     * --search-threads=N.
+     * @param args The query file and the options
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        String queryPath = null;
+        String outputPath = DEFAULT_OUTPUT;
+        String indexPath = DEFAULT_INDEX_DIR;
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        int numHits = DEFAULT_NUM_HITS;
+        List<String> searcherOptions = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--out="))
+                outputPath = arg.substring("--out=".length());
+            else if (arg.startsWith("--threads="))
+                numThreads = SearcherSettings.parsePositiveInt("threads",
+                        arg.substring("--threads=".length()));
+            else if (arg.startsWith("--hits="))
+                numHits = SearcherSettings.parsePositiveInt("hits",
+                        arg.substring("--hits=".length()));
+            else if (arg.startsWith("--index="))
+                indexPath = arg.substring("--index=".length());
+            else if (SearcherSettings.isOption(arg))
+                searcherOptions.add(arg);
+            else
+                queryPath = arg;
+        }
+        if (queryPath == null)
+            throw new RuntimeException("Requires the file of queries to run, one query " +
+                    "per line.");
+
+        SearcherSettings settings = SearcherSettings.parse(
+                searcherOptions.toArray(new String[0]));
+        try (LuceneQuerySearcher querySearcher = new LuceneQuerySearcher(indexPath,
+                settings)) {
+            querySearcher.warmUp();
+            new BatchQueryRunner(querySearcher, numThreads, numHits).run(
+                    new File(queryPath), new File(outputPath));
+        }
+        System.out.println("Results are saved in " + new File(outputPath).getAbsolutePath());
+    }
+}
@@ -0,0 +1,133 @@
+package QueryPackage;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class opens the directories of the index with the implementation the settings
+ * choose, instead of leaving the choice to FSDirectory.open, and loads the index files
+ * the settings name into memory before the first query. Memory-mapped files are read
+ * from the page cache, so a file that has been read once is served without going to
+ * the disk; loading the terms and postings up front moves that cost from the first
+ * queries to the startup of the searcher.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class IndexDirectories {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private final SearcherSettings settings;
+
+    /**
+     * Constructs the opener of the index directories.
+     * @param settings The settings with the directory type and the files to preload
+     */
+    IndexDirectories(SearcherSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Opens a directory of the index. Memory-mapped directories load every file they
+     * open into memory at once if the settings preload all files.
+     * @param path The path of the directory
+     * @return The directory
+     * @throws IOException
+     */
+    Directory open(Path path) throws IOException {
+        switch (settings.getDirectoryType()) {
+            case SearcherSettings.MMAP_DIRECTORY:
+                MMapDirectory directory = new MMapDirectory(path);
+                directory.setPreload(settings.isPreloadAll());
+                return directory;
+            case SearcherSettings.NIO_DIRECTORY:
+                return new NIOFSDirectory(path);
+            default:
+                return FSDirectory.open(path);
+        }
+    }
+
+    /**
+     * Reads the index files the settings name into memory, in the index directory and
+     * in the directory of each shard. Files that were already loaded when they were
+     * opened are counted without reading them again.
+     * @param indexPath The path of the index directory
+     * @param shardPrefix The start of the name of each shard directory
+     * @return The number of bytes of index files that were loaded
+     * @throws IOException
+     */
+    long preload(Path indexPath, String shardPrefix) throws IOException {
+        Set<String> extensions = settings.getPreloadExtensions();
+        if (extensions.isEmpty())
+            return 0;
+
+        List<Path> paths = new ArrayList<>();
+        paths.add(indexPath);
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(indexPath,
+                shardPrefix + "*")) {
+            for (Path shard : shards)
+                paths.add(shard);
+        }
+
+        //a memory-mapped directory that preloads loaded every file when it opened it
+        boolean loadedOnOpen = settings.isPreloadAll() &&
+                settings.getDirectoryType().equals(SearcherSettings.MMAP_DIRECTORY);
+        long numBytes = 0;
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        for (Path path : paths) {
+            try (Directory directory = open(path)) {
+                for (String file : directory.listAll()) {
+                    if (!settings.isPreloadAll() && !extensions.contains(extension(file)))
+                        continue;
+                    numBytes += loadedOnOpen ? directory.fileLength(file) :
+                            readFully(directory, file, buffer);
+                }
+            }
+        }
+        return numBytes;
+    }
+
+    /**
+     * Reads every byte of a file once, which brings the whole file into the page cache.
+     * @param directory The directory of the file
+     * @param file The name of the file
+     * @param buffer The buffer to read into
+     * @return The length of the file
+     * @throws IOException
+     */
+    private static long readFully(Directory directory, String file, byte[] buffer)
+            throws IOException {
+        try (IndexInput input = directory.openInput(file, IOContext.READONCE)) {
+            long length = input.length();
+            long remaining = length;
+            while (remaining > 0) {
+                int numBytes = (int) Math.min(buffer.length, remaining);
+                input.readBytes(buffer, 0, numBytes);
+                remaining -= numBytes;
+            }
+            return length;
+        }
+    }
+
+    /**
+     * Finds the extension of an index file, such as tim for the terms dictionary.
+     * @param file The name of the file
+     * @return The extension without the dot, or an empty string if there is none
+     */
+    private static String extension(String file) {
+        int dot = file.lastIndexOf('.');
+        return (dot < 0) ? "" : file.substring(dot + 1);
+    }
+}
@@ -1,30 +1,67 @@
 package QueryPackage;
 
+import IndexPackage.SuggesterBuilder;
 import org.apache.lucene.analysis.CharArraySet;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.BinaryDocValues;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.highlight.*;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.LengthGoalBreakIterator;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
 import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.FSDirectory;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.InputMismatchException;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
- * This class is for searching the Lucene index files for a given query.
+ * This class is for searching the Lucene index files for a given query. One searcher
+ * can be kept open and shared by any number of threads. The index is reopened in the
+ * background whenever the indexer commits to it, and each request searches, loads its
+ * documents and highlights them from the same point-in-time view of the index, even if
+ * the index changes in the middle of the request.
  *
  * References for creating this indexer:
  * https://lucene.apache.org/core/8_4_1/core/index.html
@@ -35,13 +72,26 @@ import java.util.Scanner;
  *  @version 1.0
  *  @since Mar 03, 2020
  */
-public class LuceneQuerySearcher {
-    private IndexSearcher searcher;
-    private MultiFieldQueryParser parser;
-    private IndexReader reader;
+public class LuceneQuerySearcher implements Closeable {
+    private ReferenceManager<IndexSearcher> searcherManager;
+    private ScheduledExecutorService refresher;
     private StandardAnalyzer analyzer;
-    private final String INDEX_DIR = "Index_Files";
+    private QueryResultCache resultCache;
+    private ExecutorService executor;
+    private int searchThreads;
+    private PinnedSearchers pinnedSearchers;
+    private IndexDirectories indexDirectories;
+    private Path indexPath;
+    private String warmupPath;
+    private volatile boolean ready;
+    private File suggesterFile;
+    private volatile QuerySuggester suggester;
+    private static final String INDEX_DIR = "Index_Files";
+    private final String SHARD_PREFIX = "shard";
+    private final int REFRESH_INTERVAL_MS = 1000;
+    private final int WARMUP_NUM_HITS = 10;
     private static final String[] JSON_KEYS = {"text", "title", "url"};
+    private static final Scanner INPUT = new Scanner(System.in);
     private final String[] STOP_WORDS = {"a", "an", "and", "are", "as", "at", "be", "but",
             "by", "for", "if", "in", "into", "is", "it", "no", "not", "of", "on", "or",
             "such", "that", "the", "their", "then", "there", "these", "they", "this",
@@ -49,14 +99,217 @@ public class LuceneQuerySearcher {
     private final int MIN_FRAGMENT_LENGTH = 30;
     private final String FRAGMENT_SEPARATOR = "...";
     private final int MAX_NUM_FRAGMENTS = 5;
+    private final String HIGHLIGHT_PRE_TAG = "<B>";
+    private final String HIGHLIGHT_POST_TAG = "</B>";
 
-    /** Instantiates the query searcher. */
+    /** Instantiates the query searcher for the default index directory. */
     public LuceneQuerySearcher() throws IOException {
-        Directory indexDirectory = FSDirectory.open(Paths.get(INDEX_DIR));
-        reader = DirectoryReader.open(indexDirectory);
+        this(INDEX_DIR);
+    }
+
+    /**
+     * Instantiates the query searcher for the given index directory and starts checking
+     * it for new commits in the background.
+     * @param indexDirectoryPath The directory path of the Lucene index files
+     * @throws IOException
+     */
+    public LuceneQuerySearcher(String indexDirectoryPath) throws IOException {
+        this(indexDirectoryPath, new SearcherSettings());
+    }
+
+    /**
+     * Instantiates the query searcher for the given index directory with the given
+     * settings, such as the number of threads each query is searched on and the size
+     * of the cache for the results of repeated queries.
+     * @param indexDirectoryPath The directory path of the Lucene index files
+     * @param settings The settings of the searcher
+     * @throws IOException
+     */
+    public LuceneQuerySearcher(String indexDirectoryPath, SearcherSettings settings)
+            throws IOException {
+        resultCache = new QueryResultCache(settings.getCacheEntries(),
+                settings.getCacheBytes());
+        pinnedSearchers = new PinnedSearchers(settings.getCursorSeconds());
         analyzer = new StandardAnalyzer(initializeStopWords());
-        searcher = new IndexSearcher(reader);
-        parser = new MultiFieldQueryParser(new String[] {JSON_KEYS[0], JSON_KEYS[1]},
+        SearcherFactory searcherFactory = new SearcherFactory();
+        searchThreads = settings.getSearchThreads();
+        if (searchThreads > 0) {
+            executor = Executors.newFixedThreadPool(settings.getSearchThreads(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "search");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            searcherFactory = new ParallelSearcherFactory(executor,
+                    settings.getSliceDocs(), settings.getSliceSegments());
+        }
+        indexDirectories = new IndexDirectories(settings);
+        indexPath = Paths.get(indexDirectoryPath);
+        warmupPath = settings.getWarmupPath();
+        searcherManager = openSearcherManager(indexPath, searcherFactory);
+        suggesterFile = new File(indexDirectoryPath, SuggesterBuilder.SUGGEST_FILENAME);
+        loadSuggester();
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "searcher-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, REFRESH_INTERVAL_MS,
+                REFRESH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens the manager of the searcher for the index files, with the directory type
+     * of the settings. If the indexer kept its shards separate, the index directory
+     * holds one index per shard, which are read together as one.
+     * @param indexPath The path of the index directory
+     * @param searcherFactory The factory that creates each searcher
+     * @return The manager of the searcher for the whole index
+     * @throws IOException
+     */
+    private ReferenceManager<IndexSearcher> openSearcherManager(Path indexPath,
+            SearcherFactory searcherFactory) throws IOException {
+        Directory indexDirectory = indexDirectories.open(indexPath);
+        if (DirectoryReader.indexExists(indexDirectory))
+            return new SearcherManager(indexDirectory, searcherFactory);
+
+        indexDirectory.close();
+        return new ShardedSearcherManager(indexPath, SHARD_PREFIX, searcherFactory,
+                indexDirectories);
+    }
+
+    /**
+     * Switches to a new searcher if the index has a new commit. Searches that are
+     * running keep the searcher they started with.
+     */
+    private void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+            pinnedSearchers.prune();
+            loadSuggester();
+        } catch (IOException e) {
+            System.out.println("Error with refreshing the index searcher");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Warms up the searcher before it answers queries, so the first queries are not
+     * slowed down by index files that are still on the disk. The index files named by
+     * the settings are loaded into memory, and then the warm-up queries are searched
+     * and highlighted once each without the result cache. The time the warm-up took
+     * and the bytes of index files it loaded are printed, and the searcher reports
+     * itself ready once it is done.
+     * @throws IOException
+     */
+    public void warmUp() throws IOException {
+        long start = System.nanoTime();
+        long numBytes = indexDirectories.preload(indexPath, SHARD_PREFIX);
+        int numQueries = 0;
+        if (warmupPath != null) {
+            IndexSearcher searcher = acquireSearcher();
+            try {
+                for (String line : Files.readAllLines(Paths.get(warmupPath),
+                        StandardCharsets.UTF_8)) {
+                    if (line.trim().isEmpty())
+                        continue;
+                    try {
+                        searchAndHighlight(searcher, line, WARMUP_NUM_HITS);
+                        numQueries++;
+                    } catch (ParseException | InvalidTokenOffsetsException e) {
+                        System.out.println("Skipped the warm-up query \"" + line +
+                                "\": " + e.getMessage());
+                    }
+                }
+            } finally {
+                releaseSearcher(searcher);
+            }
+        }
+        ready = true;
+        System.out.println(String.format("Warm-up finished in %.2f s: %.1f MB of index " +
+                "files loaded, %d queries run", (System.nanoTime() - start) / 1e9,
+                numBytes / (1024.0 * 1024.0), numQueries));
+    }
+
+    /**
+     * Checks if the warm-up has finished, so that queries are answered at full speed.
+     * @return True if the searcher is warmed up; false otherwise.
+     */
+    public boolean isReady() { return ready; }
+
+    /**
+     * Loads the suggester of the index if it was built and has changed since it was
+     * last loaded. Lookups keep using the old suggester until the new one is loaded.
+     * @throws IOException
+     */
+    private void loadSuggester() throws IOException {
+        QuerySuggester current = suggester;
+        if (!suggesterFile.exists() || (current != null &&
+                current.getLastModified() == suggesterFile.lastModified()))
+            return;
+        suggester = new QuerySuggester(suggesterFile);
+    }
+
+    /**
+     * Finds the best completions of a query as it is typed, from the page titles and
+     * frequent terms of the index, without searching the index.
+     * @param prefix The beginning of the query
+     * @param k The largest number of completions to return
+     * @return The completions, heaviest first, or none if no suggester was built
+     * @throws IOException
+     */
+    public List<String> suggest(String prefix, int k) throws IOException {
+        QuerySuggester current = suggester;
+        return (current == null) ? new ArrayList<>() : current.suggest(prefix, k);
+    }
+
+    /**
+     * Acquires the current searcher so that several searches or document loads see the
+     * same version of the index. Every acquired searcher must be given back with
+     * releaseSearcher.
+     * @return The current searcher
+     * @throws IOException
+     */
+    public IndexSearcher acquireSearcher() throws IOException {
+        return searcherManager.acquire();
+    }
+
+    /**
+     * Gives back a searcher from acquireSearcher, so that it can be closed once the
+     * index has moved on to a newer version.
+     * @param searcher The acquired searcher
+     * @throws IOException
+     */
+    public void releaseSearcher(IndexSearcher searcher) throws IOException {
+        searcherManager.release(searcher);
+    }
+
+    /**
+     * Retrieves the cache of query results, whose counters show how often repeated
+     * queries were answered without searching.
+     * @return The result cache
+     */
+    public QueryResultCache getResultCache() { return resultCache; }
+
+    /**
+     * Retrieves the version of the index a searcher reads, which grows with every
+     * commit to the index.
+     * @param reader The reader of the searcher
+     * @return The version of the index
+     */
+    private long getIndexVersion(IndexReader reader) {
+        if (reader instanceof DirectoryReader)
+            return ((DirectoryReader) reader).getVersion();
+        return ShardedSearcherManager.getVersion(reader);
+    }
+
+    /**
+     * Creates the parser for the text and title of the websites. A parser is not safe
+     * to share between threads, so each request creates its own.
+     * @return The query parser
+     */
+    private MultiFieldQueryParser createParser() {
+        return new MultiFieldQueryParser(new String[] {JSON_KEYS[0], JSON_KEYS[1]},
                 analyzer);
     }
 
@@ -76,7 +329,8 @@ public class LuceneQuerySearcher {
 
     /**
      * Performs the search of the index files for a given query and number of results to
-     * return.
+     * return. The document IDs of the results belong to the searcher at the time of the
+     * search; use acquireSearcher to load the documents from the same searcher.
      * @param queryString The query to search
      * @param numHits The number of results to return
      * @return The top results, restricted to numHits quantity
@@ -85,71 +339,438 @@ public class LuceneQuerySearcher {
      */
     public TopDocs performSearch(String queryString, int numHits)
             throws IOException, ParseException {
-        Query query = parser.parse(queryString);
-        return searcher.search(query, numHits);
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            return searcher.search(createParser().parse(queryString), numHits);
+        } finally {
+            releaseSearcher(searcher);
+        }
     }
 
     /**
-     * Retrieves the document for a given document ID.
+     * Retrieves the document for a given document ID from the current searcher.
      * @param docId The ID of the document to obtain
      * @return The document of interest
      * @throws IOException
      */
     public Document getDocument(int docId) throws IOException {
-        return searcher.doc(docId);
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            return searcher.doc(docId);
+        } finally {
+            releaseSearcher(searcher);
+        }
+    }
+
+    /**
+     * Retrieves only the given fields of the document for a given document ID from the
+     * current searcher. The other stored fields, such as the website text, are skipped
+     * instead of being decoded, and fields the indexer kept in doc values are read from
+     * there without touching the stored fields at all.
+     * @param docId The ID of the document to obtain
+     * @param fields The names of the fields to load
+     * @return The document with only the given fields
+     * @throws IOException
+     */
+    public Document getDocument(int docId, String... fields) throws IOException {
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            return loadFields(searcher, docId, fields);
+        } finally {
+            releaseSearcher(searcher);
+        }
+    }
+
+    /**
+     * Loads the given fields of a document. A field is read from its doc values if the
+     * segment of the document has them, which the indexer writes for the title and url
+     * when run with --doc-values; the rest are read from the stored fields with a
+     * visitor that only keeps the given fields.
+     * @param searcher The searcher pinned for the request
+     * @param docId The ID of the document to load
+     * @param fields The names of the fields to load
+     * @return The document with only the given fields
+     * @throws IOException
+     */
+    private Document loadFields(IndexSearcher searcher, int docId, String... fields)
+            throws IOException {
+        Document doc = new Document();
+        Set<String> storedFields = new HashSet<>();
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(docId, leaves));
+        for (String field : fields) {
+            BinaryDocValues values = leaf.reader().getBinaryDocValues(field);
+            if (values != null && values.advanceExact(docId - leaf.docBase))
+                doc.add(new StoredField(field, values.binaryValue().utf8ToString()));
+            else
+                storedFields.add(field);
+        }
+
+        if (!storedFields.isEmpty()) {
+            DocumentStoredFieldVisitor visitor = new DocumentStoredFieldVisitor(
+                    storedFields);
+            searcher.doc(docId, visitor);
+            for (IndexableField field : visitor.getDocument())
+                doc.add(field);
+        }
+        return doc;
     }
 
     /**
      * Retrieves the top hits for a given query and number of hits at most to return.
+     * The search, the documents and the highlights all come from one searcher. Repeated
+     * queries are answered from the result cache while the index has not changed; the
+     * returned array may be shared with the cache and must not be changed.
      * @param query The query to search
      * @param numHits The number of hits that the search should return at maximum
      * @return A matrix of results with each row as a result and each column as the fields
      * @throws IOException
      * @throws ParseException
      */
-    @SuppressWarnings({"deprecation", "unchecked"})
     public JSONArray retrieveTopHits(String query, int numHits) throws IOException,
             ParseException, InvalidTokenOffsetsException {
-        final int FRAGMENT_LENGTH = getFragmentLength(query);
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            return retrieveTopHits(searcher, query, numHits);
+        } finally {
+            releaseSearcher(searcher);
+        }
+    }
 
-        TopDocs topDocs = performSearch(query, numHits);
-        ScoreDoc[] hits = topDocs.scoreDocs;
+    /**
+     * Retrieves the top hits for a given query from a searcher that was acquired with
+     * acquireSearcher, so that many queries can be run against the same version of the
+     * index. Repeated queries are answered from the result cache.
+     * @param searcher The acquired searcher
+     * @param query The query to search
+     * @param numHits The number of hits that the search should return at maximum
+     * @return A matrix of results with each row as a result and each column as the fields
+     * @throws IOException
+     * @throws ParseException
+     */
+    public JSONArray retrieveTopHits(IndexSearcher searcher, String query, int numHits)
+            throws IOException, ParseException, InvalidTokenOffsetsException {
+        long version = getIndexVersion(searcher.getIndexReader());
+        JSONArray results = resultCache.get(query, numHits, version);
+        if (results == null) {
+            results = searchAndHighlight(searcher, query, numHits);
+            resultCache.put(query, numHits, version, results);
+        }
+        return results;
+    }
 
+    /**
+     * Retrieves one page of the hits of a query. The first page is asked for without a
+     * cursor; each page returns the cursor of the page after it. Only the documents of
+     * the page are loaded and highlighted, and the search continues after the last hit
+     * of the previous page, so every page costs about the same however deep it is. The
+     * pages of a query are read from the version of the index of its first page, which
+     * is kept for the cursor time of the settings after it was last used; after that,
+     * the next page is read from the current version.
+     * @param query The query to search
+     * @param pageSize The number of hits per page
+     * @param cursor The cursor returned with the previous page, or null for the first
+     *               page
+     * @return The page of results with the cursor of the next page
+     * @throws IOException
+     * @throws ParseException
+     * @throws IllegalArgumentException if the cursor is not valid for the query
+     */
+    public SearchPage retrievePage(String query, int pageSize, String cursor)
+            throws IOException, ParseException, InvalidTokenOffsetsException {
+        PageCursor after = (cursor == null) ? null : PageCursor.decode(cursor, query);
+        IndexSearcher searcher = (after == null) ? null :
+                pinnedSearchers.acquire(after.getVersion());
+        boolean pinned = searcher != null;
+        if (!pinned)
+            searcher = acquireSearcher();
+        try {
+            long version = getIndexVersion(searcher.getIndexReader());
+            pinnedSearchers.pin(version, searcher);
+
+            Query queryObj = createParser().parse(query);
+            TopDocs topDocs = (after == null) ? searcher.search(queryObj, pageSize) :
+                    searcher.searchAfter(after.getLastHit(), queryObj, pageSize);
+            ScoreDoc[] hits = topDocs.scoreDocs;
+            JSONArray results = loadAndHighlight(searcher, queryObj,
+                    getFragmentLength(query), hits);
+
+            int numReturned = ((after == null) ? 0 : after.getNumReturned()) + hits.length;
+            String nextCursor = null;
+            if (hits.length == pageSize && numReturned < topDocs.totalHits.value)
+                nextCursor = new PageCursor(version, hits[hits.length - 1], numReturned,
+                        query).encode();
+            return new SearchPage(results, nextCursor, topDocs.totalHits.value,
+                    topDocs.totalHits.relation == TotalHits.Relation.EQUAL_TO);
+        } finally {
+            if (pinned)
+                pinnedSearchers.release(searcher);
+            else
+                releaseSearcher(searcher);
+        }
+    }
+
+    /**
+     * Retrieves the title, url and score of the top hits for a given query, without
+     * snippets of the text. Only the title and url of each hit are loaded, so with an
+     * index built with --doc-values the stored text is never read.
+     * @param query The query to search
+     * @param numHits The number of hits that the search should return at maximum
+     * @return The results, each with the title, url and score of a hit
+     * @throws IOException
+     * @throws ParseException
+     */
+    @SuppressWarnings("unchecked")
+    public JSONArray retrieveHitList(String query, int numHits) throws IOException,
+            ParseException {
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            TopDocs topDocs = searcher.search(createParser().parse(query), numHits);
+            JSONArray results = new JSONArray();
+            for (ScoreDoc hit : topDocs.scoreDocs) {
+                Document doc = loadFields(searcher, hit.doc, JSON_KEYS[1], JSON_KEYS[2]);
+                JSONObject result = new JSONObject();
+                result.put(JSON_KEYS[1], doc.get(JSON_KEYS[1]));
+                result.put(JSON_KEYS[2], doc.get(JSON_KEYS[2]));
+                result.put("score", hit.score);
+                results.add(result);
+            }
+            return results;
+        } finally {
+            releaseSearcher(searcher);
+        }
+    }
+
+    /**
+     * Searches the given searcher for a query and highlights the text of the top hits.
+     * @param searcher The searcher pinned for the request
+     * @param query The query to search
+     * @param numHits The number of hits that the search should return at maximum
+     * @return A matrix of results with each row as a result and each column as the fields
+     * @throws IOException
+     * @throws ParseException
+     */
+    private JSONArray searchAndHighlight(IndexSearcher searcher, String query,
+                                         int numHits)
+            throws IOException, ParseException, InvalidTokenOffsetsException {
+        Query queryObj = createParser().parse(query);
+        TopDocs topDocs = searcher.search(queryObj, numHits);
+        return loadAndHighlight(searcher, queryObj, getFragmentLength(query),
+                topDocs.scoreDocs);
+    }
+
+    /**
+     * Loads the documents of the given hits and highlights their text. With search
+     * threads, the hits are split into one group per thread and each group's documents
+     * are loaded and highlighted on its own thread.
+     * @param searcher The searcher pinned for the request
+     * @param queryObj The parsed query
+     * @param FRAGMENT_LENGTH The number of characters to aim for in each fragment
+     * @param hits The hits to create the results of
+     * @return A matrix of results with each row as a result and each column as the fields
+     * @throws IOException
+     * @throws InvalidTokenOffsetsException
+     */
+    @SuppressWarnings("unchecked")
+    private JSONArray loadAndHighlight(IndexSearcher searcher, Query queryObj,
+                                       final int FRAGMENT_LENGTH, ScoreDoc[] hits)
+            throws IOException, InvalidTokenOffsetsException {
         int numResults = hits.length;
-        int numKeys = JSON_KEYS.length;
+        JSONObject[] resultList = new JSONObject[numResults];
+
+        //highlight from the term offsets in the index if it has them
+        UnifiedHighlighter offsetHighlighter = null;
+        if (hasOffsets(searcher.getIndexReader(), JSON_KEYS[0]))
+            offsetHighlighter = createOffsetHighlighter(searcher, FRAGMENT_LENGTH);
+
+        int numGroups = Math.min(numResults, searchThreads);
+        if (numGroups <= 1)
+            createResults(searcher, queryObj, offsetHighlighter, FRAGMENT_LENGTH, hits, 0,
+                    numResults, resultList);
+        else {
+            List<Future<?>> groups = new ArrayList<>();
+            for (int group = 0; group < numGroups; group++) {
+                int from = (int) ((long) numResults * group / numGroups);
+                int to = (int) ((long) numResults * (group + 1) / numGroups);
+                UnifiedHighlighter highlighter = offsetHighlighter;
+                groups.add(executor.submit(() -> {
+                    createResults(searcher, queryObj, highlighter, FRAGMENT_LENGTH,
+                            hits, from, to, resultList);
+                    return null;
+                }));
+            }
+            waitForGroups(groups);
+        }
+
         JSONArray results = new JSONArray();
+        for (JSONObject result : resultList)
+            results.add(result);
+        return results;
+    }
 
-        //setup fragmenter/highlighter
-        Query queryObj = parser.parse(query);
-        Formatter formatter = new SimpleHTMLFormatter();
-        QueryScorer scorer = new QueryScorer(queryObj);
-        Highlighter highlighter = new Highlighter(formatter, scorer);
-        Fragmenter fragmenter = new SimpleSpanFragmenter(scorer, FRAGMENT_LENGTH);
-        highlighter.setTextFragmenter(fragmenter);
+    /**
+     * Loads the documents of a range of the top hits and highlights their text.
+     * @param searcher The searcher pinned for the request
+     * @param query The parsed query
+     * @param offsetHighlighter The highlighter of the term offsets in the index, or null
+     *                          to highlight by analyzing the text again
+     * @param fragmentLength The number of characters to aim for in each fragment
+     * @param hits The top hits of the query
+     * @param from The first hit of the range
+     * @param to The hit after the last hit of the range
+     * @param resultList The results, of which the range is filled in
+     * @throws IOException
+     * @throws InvalidTokenOffsetsException
+     */
+    @SuppressWarnings({"deprecation", "unchecked"})
+    private void createResults(IndexSearcher searcher, Query query,
+                               UnifiedHighlighter offsetHighlighter, int fragmentLength,
+                               ScoreDoc[] hits, int from, int to, JSONObject[] resultList)
+            throws IOException, InvalidTokenOffsetsException {
+        int numKeys = JSON_KEYS.length;
+        String[] snippets = null;
+        Highlighter highlighter = null;
+        if (offsetHighlighter != null)
+            snippets = highlightFromOffsets(offsetHighlighter, query, hits, from, to);
+        else {
+            //setup fragmenter/highlighter
+            Formatter formatter = new SimpleHTMLFormatter();
+            QueryScorer scorer = new QueryScorer(query);
+            highlighter = new Highlighter(formatter, scorer);
+            Fragmenter fragmenter = new SimpleSpanFragmenter(scorer, fragmentLength);
+            highlighter.setTextFragmenter(fragmenter);
+        }
 
         //creates the matrix of all results and their information
-        for (int hit = 0; hit < numResults; hit++) {
+        for (int hit = from; hit < to; hit++) {
             int docID = hits[hit].doc;
-            Document doc = getDocument(docID);
+            //the text is only needed here when it is not highlighted from offsets
+            Document doc = (snippets != null) ?
+                    loadFields(searcher, docID, JSON_KEYS[1], JSON_KEYS[2]) :
+                    loadFields(searcher, docID, JSON_KEYS);
             JSONObject result = new JSONObject();
 
             for (int key = 0; key < numKeys; key++) {
                 String text = doc.get(JSON_KEYS[key]);
 
                 //if adding the website's body, save fragment to results
-                if (key == 0) {
-                    TokenStream stream = TokenSources.getAnyTokenStream(reader, docID,
+                if (key == 0 && snippets != null)
+                    text = (snippets[hit - from] == null) ? "" : snippets[hit - from];
+                else if (key == 0) {
+                    TokenStream stream = TokenSources.getAnyTokenStream(
+                            searcher.getIndexReader(), docID,
                             JSON_KEYS[key], analyzer);
                     text = highlighter.getBestFragments(stream, text,
                             MAX_NUM_FRAGMENTS, FRAGMENT_SEPARATOR);
                 }
-//                System.out.println(text);
                 result.put(JSON_KEYS[key], text);
             }
             result.put("score", hits[hit].score);
-            results.add(result);
+            resultList[hit] = result;
         }
-        return results;
+    }
+
+    /**
+     * Waits for the groups of top hits of a query to be loaded and highlighted.
+     * @param groups The tasks of the groups
+     * @throws IOException
+     * @throws InvalidTokenOffsetsException
+     */
+    private static void waitForGroups(List<Future<?>> groups)
+            throws IOException, InvalidTokenOffsetsException {
+        try {
+            for (Future<?> group : groups)
+                group.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Loading the top hits was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof InvalidTokenOffsetsException)
+                throw (InvalidTokenOffsetsException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new IOException("Error with loading the top hits", cause);
+        } finally {
+            for (Future<?> group : groups)
+                group.cancel(true);
+        }
+    }
+
+    /**
+     * Checks if every segment of the index has the character offsets of the terms of a
+     * field in its postings, which the indexer writes when run with --offsets.
+     * @param reader The reader of the index
+     * @param field The name of the field
+     * @return True if the offsets can be used for highlighting; false otherwise.
+     */
+    private boolean hasOffsets(IndexReader reader, String field) {
+        for (LeafReaderContext leaf : reader.leaves()) {
+            FieldInfo info = leaf.reader().getFieldInfos().fieldInfo(field);
+            if (info != null && info.getIndexOptions().compareTo(
+                    IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates the highlighter that uses the offsets of the matching terms that are
+     * stored in the postings. Only the matches are visited, so the cost does not grow
+     * with the length of the pages the way analyzing the text again does. The
+     * highlighter can be shared by the threads of a request.
+     * @param searcher The searcher pinned for the request
+     * @param fragmentLength The number of characters to aim for in each fragment
+     * @return The highlighter for the text of the hits
+     */
+    private UnifiedHighlighter createOffsetHighlighter(IndexSearcher searcher,
+                                                       int fragmentLength) {
+        UnifiedHighlighter highlighter = new UnifiedHighlighter(searcher, analyzer);
+        highlighter.setFormatter(new DefaultPassageFormatter(HIGHLIGHT_PRE_TAG,
+                HIGHLIGHT_POST_TAG, FRAGMENT_SEPARATOR, false));
+        highlighter.setBreakIterator(() -> LengthGoalBreakIterator.createClosestToLength(
+                BreakIterator.getWordInstance(Locale.ROOT), fragmentLength));
+        highlighter.setMaxLength(Integer.MAX_VALUE - 1);
+        highlighter.setMaxNoHighlightPassages(0);
+        return highlighter;
+    }
+
+    /**
+     * Highlights the text of a range of the top hits using the term offsets.
+     * @param highlighter The highlighter of the term offsets
+     * @param query The parsed query
+     * @param hits The top hits of the query
+     * @param from The first hit of the range
+     * @param to The hit after the last hit of the range
+     * @return The snippet of each hit of the range, or null for a hit without a match
+     *         in its text
+     * @throws IOException
+     */
+    private String[] highlightFromOffsets(UnifiedHighlighter highlighter, Query query,
+                                          ScoreDoc[] hits, int from, int to)
+            throws IOException {
+        int[] docIds = new int[to - from];
+        for (int hit = from; hit < to; hit++)
+            docIds[hit - from] = hits[hit].doc;
+        int[] maxPassages = {MAX_NUM_FRAGMENTS};
+        return highlighter.highlightFields(new String[] {JSON_KEYS[0]}, query, docIds,
+                maxPassages).get(JSON_KEYS[0]);
+    }
+
+    /**
+     * Stops checking for new commits and closes the searcher once the searches that are
+     * running have finished with it.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        refresher.shutdownNow();
+        pinnedSearchers.close();
+        searcherManager.close();
+        if (executor != null)
+            executor.shutdown();
     }
 
     /**
@@ -186,69 +807,105 @@ public class LuceneQuerySearcher {
     /* For testing purposes */
     public static void main(String[] args) throws IOException, ParseException,
             InvalidTokenOffsetsException {
-        LuceneQuerySearcher qs = new LuceneQuerySearcher();
-        int numHits = 0;
-        String query = "";
-        int argsLength = args.length;
-
-        //get input from command line: format required [numHits] [query string]
-        for (int i = 0; i < argsLength; i++) {
-            if (i==0) {
-                try {
-                    numHits = Integer.parseInt(args[i]);
-                }
-                catch(NumberFormatException e) {
-                    System.out.println("The first input should be the " +
-                            "number hits to display for the query. Please try again.\n");
-                    i = argsLength; //end loop early
-                    numHits = retrieveNumHits();
-                    query = retrieveQuery();
+        SearcherSettings settings = SearcherSettings.parse(args);
+        args = removeOptions(args);
+        try (LuceneQuerySearcher qs = new LuceneQuerySearcher(INDEX_DIR, settings)) {
+            qs.warmUp();
+            int numHits = 0;
+            String query = "";
+            int argsLength = args.length;
+
+            //get input from command line: format required [numHits] [query string]
+            for (int i = 0; i < argsLength; i++) {
+                if (i==0) {
+                    try {
+                        numHits = Integer.parseInt(args[i]);
+                    }
+                    catch(NumberFormatException e) {
+                        System.out.println("The first input should be the " +
+                                "number hits to display for the query. Please try " +
+                                "again.\n");
+                        i = argsLength; //end loop early
+                        numHits = retrieveNumHits();
+                        query = retrieveQuery();
 
+                    }
                 }
+                else
+                    query += args[i] + " ";
+            }
+
+            if(argsLength == 0) {
+                //keep the index open and answer queries until the user quits
+                System.out.println("Input 0 as the number of hits to quit.");
+                while ((numHits = retrieveNumHits()) > 0)
+                    printTopHits(qs, retrieveQuery(), numHits);
             }
+            //return empty array for bad input
+            else if (numHits <= 0)
+                System.out.println("No results since requested " + numHits + " results.");
             else
-                query += args[i] + " ";
+                printTopHits(qs, query, numHits);
         }
+    }
 
-        if(argsLength == 0) {
-            numHits = retrieveNumHits();
-            query = retrieveQuery();
+    /**
+     * Removes the searcher options from the command line arguments so only the number
+     * of hits and the query are left.
+     * @param args The command line arguments
+     * @return The arguments that are not searcher options
+     */
+    private static String[] removeOptions(String[] args) {
+        List<String> remaining = new ArrayList<>();
+        for (String arg : args) {
+            if (!SearcherSettings.isOption(arg))
+                remaining.add(arg);
         }
+        return remaining.toArray(new String[0]);
+    }
 
-        //return empty array for bad input
-        if (numHits <= 0)
-            System.out.println("No results since requested " + numHits + " results.");
-        else {
-            JSONArray results = qs.retrieveTopHits(query, numHits);
-            int numResults = results.size();
-
-            //retrieve the JSON outputs for the query
-            for (int i = 0; i < numResults; i++) {
-                System.out.println(results.get(i) + "\n");
-                JSONObject test = (JSONObject) results.get(i);
-            }
-        }
+    /**
+     * Prints the JSON output of the top hits for a query.
+     * @param qs The query searcher
+     * @param query The query to search
+     * @param numHits The number of hits to display
+     * @throws IOException
+     * @throws ParseException
+     */
+    private static void printTopHits(LuceneQuerySearcher qs, String query, int numHits)
+            throws IOException, ParseException, InvalidTokenOffsetsException {
+        JSONArray results = qs.retrieveTopHits(query, numHits);
+        int numResults = results.size();
 
+        //retrieve the JSON outputs for the query
+        for (int i = 0; i < numResults; i++)
+            System.out.println(results.get(i) + "\n");
     }
 
     /**
      * Retrieves the number of hits to display from the user.
-     * @return The number of hits to display for a given query.
+     * @return The number of hits to display for a given query, or 0 at the end of the
+     *         input.
      */
     private static int retrieveNumHits() {
         int result = -1;
         System.out.print("Please input the number of hits you wish to retrieve: ");
         try {
-            Scanner s = new Scanner(System.in);
-            result = s.nextInt();
+            result = INPUT.nextInt();
+            INPUT.nextLine(); //rest of the line
             if (result < 0)
                 throw new InputMismatchException();
         }
         catch(InputMismatchException e) {
             System.out.println("The input was not a nonnegative integer. Please try " +
                     "again.\n");
+            if (INPUT.hasNextLine())
+                INPUT.nextLine();
             return retrieveNumHits();
         }
+        catch(NoSuchElementException e) {
+            return 0;
+        }
         return result;
     }
 
@@ -258,9 +915,8 @@ public class LuceneQuerySearcher {
      */
     private static String retrieveQuery() {
         System.out.print("Please input the query as one line: ");
-        Scanner s = new Scanner(System.in);
-        String result = s.nextLine();
+        String result = INPUT.hasNextLine() ? INPUT.nextLine() : "";
         System.out.println("The query string: " + result);
         return result;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package QueryPackage;
+
+import org.apache.lucene.search.ScoreDoc;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * This class is the position after the last hit of a page of results, given to the
+ * client as an opaque token so it can ask for the next page. The token holds the
+ * version of the index the pages are read from, the score and document of the last hit
+ * for searchAfter, the number of hits returned so far, and a hash of the query so that a
+ * token cannot be used with a different query.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class PageCursor {
+    private static final int TOKEN_BYTES = Long.BYTES + Float.BYTES + 3 * Integer.BYTES;
+    private final long version;
+    private final float score;
+    private final int doc;
+    private final int numReturned;
+    private final int queryHash;
+
+    /**
+     * Constructs the cursor after the given hit.
+     * @param version The version of the index the pages are read from
+     * @param lastHit The last hit of the page
+     * @param numReturned The number of hits returned so far, including this page
+     * @param query The query string
+     */
+    PageCursor(long version, ScoreDoc lastHit, int numReturned, String query) {
+        this(version, lastHit.score, lastHit.doc, numReturned, query.trim().hashCode());
+    }
+
+    /**
+     * Constructs the cursor from its fields.
+     * @param version The version of the index the pages are read from
+     * @param score The score of the last hit
+     * @param doc The document ID of the last hit
+     * @param numReturned The number of hits returned so far
+     * @param queryHash The hash of the query string
+     */
+    private PageCursor(long version, float score, int doc, int numReturned,
+                       int queryHash) {
+        this.version = version;
+        this.score = score;
+        this.doc = doc;
+        this.numReturned = numReturned;
+        this.queryHash = queryHash;
+    }
+
+    /**
+     * Reads a cursor from its token.
+     * @param token The token given to the client
+     * @param query The query string the next page is asked for
+     * @return The cursor
+     * @throws IllegalArgumentException if the token is not valid or is for another query
+     */
+    static PageCursor decode(String token, String query) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("The cursor is not valid.", e);
+        }
+        if (bytes.length != TOKEN_BYTES)
+            throw new IllegalArgumentException("The cursor is not valid.");
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        PageCursor cursor = new PageCursor(buffer.getLong(), buffer.getFloat(),
+                buffer.getInt(), buffer.getInt(), buffer.getInt());
+        if (cursor.queryHash != query.trim().hashCode())
+            throw new IllegalArgumentException("The cursor belongs to a different query.");
+        return cursor;
+    }
+
+    /**
+     * Writes the cursor as a token that is safe to put in a URL.
+     * @return The token
+     */
+    String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(TOKEN_BYTES);
+        buffer.putLong(version).putFloat(score).putInt(doc).putInt(numReturned)
+                .putInt(queryHash);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Retrieves the version of the index the pages are read from.
+     * @return The version of the index
+     */
+    long getVersion() { return version; }
+
+    /**
+     * Retrieves the last hit of the previous page, to search after.
+     * @return The last hit
+     */
+    ScoreDoc getLastHit() { return new ScoreDoc(doc, score); }
+
+    /**
+     * Retrieves the number of hits returned by the previous pages.
+     * @return The number of hits returned so far
+     */
+    int getNumReturned() { return numReturned; }
+}
@@ -0,0 +1,96 @@
+package QueryPackage;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * This class creates searchers that search the segments of the index on a pool of
+ * threads. The segments are grouped into slices and each slice is searched by one
+ * thread. A segment with at least the slice's number of documents is a slice by itself,
+ * and neighbouring smaller segments are grouped until a slice reaches the number of
+ * documents or the number of segments of a slice. The slices keep the order of the
+ * segments, so hits with the same score come back in the same order as in a search on
+ * one thread. A single segment is never split between threads, so a large index should
+ * keep several segments for a parallel search to help.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class ParallelSearcherFactory extends SearcherFactory {
+    private final ExecutorService executor;
+    private final int sliceDocs;
+    private final int sliceSegments;
+
+    /**
+     * Constructs the factory.
+     * @param executor The pool of threads the slices are searched on
+     * @param sliceDocs The number of documents small segments are grouped up to
+     * @param sliceSegments The largest number of segments in one slice
+     */
+    ParallelSearcherFactory(ExecutorService executor, int sliceDocs, int sliceSegments) {
+        this.executor = executor;
+        this.sliceDocs = sliceDocs;
+        this.sliceSegments = sliceSegments;
+    }
+
+    @Override
+    public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+        return new IndexSearcher(reader, executor) {
+            @Override
+            protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+                return createSlices(leaves, sliceDocs, sliceSegments);
+            }
+        };
+    }
+
+    /**
+     * Groups the segments of an index into slices.
+     * @param leaves The segments of the index
+     * @param sliceDocs The number of documents small segments are grouped up to
+     * @param sliceSegments The largest number of segments in one slice
+     * @return The slices to search in parallel
+     */
+    static IndexSearcher.LeafSlice[] createSlices(List<LeafReaderContext> leaves,
+                                                 int sliceDocs, int sliceSegments) {
+        List<IndexSearcher.LeafSlice> slices = new ArrayList<>();
+        List<LeafReaderContext> group = new ArrayList<>();
+        long groupDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            int numDocs = leaf.reader().maxDoc();
+            if (numDocs >= sliceDocs) {
+                addSlice(slices, group);
+                groupDocs = 0;
+                slices.add(new IndexSearcher.LeafSlice(leaf));
+                continue;
+            }
+            group.add(leaf);
+            groupDocs += numDocs;
+            if (groupDocs >= sliceDocs || group.size() >= sliceSegments) {
+                addSlice(slices, group);
+                groupDocs = 0;
+            }
+        }
+        addSlice(slices, group);
+        return slices.toArray(new IndexSearcher.LeafSlice[0]);
+    }
+
+    /**
+     * Adds a group of segments as a slice, if the group has any, and empties the group.
+     * @param slices The slices so far
+     * @param group The segments of the group
+     */
+    private static void addSlice(List<IndexSearcher.LeafSlice> slices,
+                                 List<LeafReaderContext> group) {
+        if (group.isEmpty())
+            return;
+        slices.add(new IndexSearcher.LeafSlice(group.toArray(new LeafReaderContext[0])));
+        group.clear();
+    }
+}
@@ -0,0 +1,113 @@
+package QueryPackage;
+
+import org.apache.lucene.search.IndexSearcher;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class keeps the searchers that pages of results were read from open for a while
+ * after the index has moved on, in the way a SearcherLifetimeManager does, but for both
+ * a single index and an index kept as shards. Each searcher is kept by the version of
+ * the index it reads, so the next page of a query is searched on the same version as the
+ * pages before it and no hit is repeated or skipped because the index changed. A
+ * searcher that has not been used for the given time is released.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class PinnedSearchers implements Closeable {
+    private final Map<Long, Pin> pins = new ConcurrentHashMap<>();
+    private final long maxIdleNanos;
+
+    /**
+     * Constructs the pins.
+     * @param maxIdleSeconds The time a searcher is kept after it was last used
+     */
+    PinnedSearchers(int maxIdleSeconds) {
+        maxIdleNanos = TimeUnit.SECONDS.toNanos(maxIdleSeconds);
+    }
+
+    /**
+     * Keeps a searcher that is acquired by the caller, or marks it as used if it is
+     * already kept.
+     * @param version The version of the index the searcher reads
+     * @param searcher The searcher
+     * @throws IOException
+     */
+    void pin(long version, IndexSearcher searcher) throws IOException {
+        Pin pin = pins.get(version);
+        if (pin != null) {
+            pin.lastUsed = System.nanoTime();
+            return;
+        }
+        searcher.getIndexReader().incRef();
+        if (pins.putIfAbsent(version, new Pin(searcher)) != null)
+            searcher.getIndexReader().decRef();
+    }
+
+    /**
+     * Acquires the kept searcher of a version of the index. Every acquired searcher must
+     * be given back with release.
+     * @param version The version of the index
+     * @return The searcher, or null if the version is no longer kept
+     */
+    IndexSearcher acquire(long version) {
+        Pin pin = pins.get(version);
+        if (pin == null || !pin.searcher.getIndexReader().tryIncRef())
+            return null;
+        pin.lastUsed = System.nanoTime();
+        return pin.searcher;
+    }
+
+    /**
+     * Gives back a searcher from acquire.
+     * @param searcher The acquired searcher
+     * @throws IOException
+     */
+    void release(IndexSearcher searcher) throws IOException {
+        searcher.getIndexReader().decRef();
+    }
+
+    /**
+     * Releases the searchers that have not been used for the maximum idle time.
+     * @throws IOException
+     */
+    void prune() throws IOException {
+        long now = System.nanoTime();
+        for (Map.Entry<Long, Pin> entry : pins.entrySet()) {
+            Pin pin = entry.getValue();
+            if (now - pin.lastUsed > maxIdleNanos && pins.remove(entry.getKey(), pin))
+                pin.searcher.getIndexReader().decRef();
+        }
+    }
+
+    /**
+     * Releases all the kept searchers.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        for (Long version : pins.keySet()) {
+            Pin pin = pins.remove(version);
+            if (pin != null)
+                pin.searcher.getIndexReader().decRef();
+        }
+    }
+
+    /** A kept searcher with the time it was last used. */
+    private static class Pin {
+        private final IndexSearcher searcher;
+        private volatile long lastUsed = System.nanoTime();
+
+        /**
+         * Constructs the pin.
+         * @param searcher The kept searcher
+         */
+        Pin(IndexSearcher searcher) { this.searcher = searcher; }
+    }
+}
@@ -0,0 +1,227 @@
+package QueryPackage;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class caches the finished JSON results of queries, so that the queries that are
+ * asked again and again are answered without searching, loading documents and
+ * highlighting. Results are keyed on the query, with its whitespace normalized, and the
+ * number of hits. The least recently used results are evicted once the cache holds more
+ * than its maximum number of results or its maximum number of bytes. Every result
+ * belongs to a version of the index, and the whole cache is cleared as soon as a newer
+ * version is searched, so a result is never served from an older index.
+ *
+ * The counters of hits, misses, evictions and invalidations show how well the cache
+ * is sized for the traffic.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class QueryResultCache {
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+    private static final int OBJECT_OVERHEAD_BYTES = 64;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+    private static final int NUMBER_BYTES = 16;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f,
+            true);
+    private long indexVersion = Long.MIN_VALUE;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /** Constructs the cache with the default maximum number of results and bytes. */
+    public QueryResultCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Constructs the cache with the given limits. A limit of 0 turns the cache off.
+     * @param maxEntries The maximum number of results to keep
+     * @param maxBytes The maximum estimated size of the kept results, in bytes
+     */
+    public QueryResultCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Retrieves the cached results of a query for the given version of the index. The
+     * array is shared with the cache and must not be changed.
+     * @param query The query string
+     * @param numHits The number of hits asked for
+     * @param version The version of the index that is searched
+     * @return The cached results, or null if the query has to be searched
+     */
+    public synchronized JSONArray get(String query, int numHits, long version) {
+        moveToVersion(version);
+        Entry entry = (version == indexVersion) ? entries.get(createKey(query, numHits)) :
+                null;
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.results;
+    }
+
+    /**
+     * Adds the results of a query that was searched on the given version of the index,
+     * evicting the least recently used results if the cache is full. Results from an
+     * older version than the cache holds are not added.
+     * @param query The query string
+     * @param numHits The number of hits asked for
+     * @param version The version of the index that was searched
+     * @param results The results of the query
+     */
+    public synchronized void put(String query, int numHits, long version,
+                                 JSONArray results) {
+        moveToVersion(version);
+        if (version != indexVersion || maxEntries <= 0)
+            return;
+        long size = estimateBytes(results);
+        if (size > maxBytes)
+            return;
+        Entry old = entries.put(createKey(query, numHits), new Entry(results, size));
+        if (old != null)
+            bytes -= old.bytes;
+        bytes += size;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries || bytes > maxBytes) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /** Removes all the cached results. */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Clears the cache if the given version of the index is newer than the version of
+     * the cached results.
+     * @param version The version of the index that is searched
+     */
+    private void moveToVersion(long version) {
+        if (version <= indexVersion)
+            return;
+        if (!entries.isEmpty())
+            invalidations++;
+        clear();
+        indexVersion = version;
+    }
+
+    /**
+     * Creates the key of a query, which ignores differences in whitespace only.
+     * @param query The query string
+     * @param numHits The number of hits asked for
+     * @return The key of the query
+     */
+    private static String createKey(String query, int numHits) {
+        return numHits + ":" + query.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Estimates the memory used by the results of a query from the length of their
+     * strings.
+     * @param results The results of the query
+     * @return The estimated size of the results in bytes
+     */
+    private static long estimateBytes(JSONArray results) {
+        long size = OBJECT_OVERHEAD_BYTES;
+        for (Object result : results) {
+            size += OBJECT_OVERHEAD_BYTES;
+            for (Object value : ((Map<?, ?>) result).values()) {
+                if (value instanceof String)
+                    size += STRING_OVERHEAD_BYTES + 2L * ((String) value).length();
+                else
+                    size += NUMBER_BYTES;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Retrieves the number of queries answered from the cache.
+     * @return The number of hits
+     */
+    public synchronized long getHits() { return hits; }
+
+    /**
+     * Retrieves the number of queries that were not in the cache.
+     * @return The number of misses
+     */
+    public synchronized long getMisses() { return misses; }
+
+    /**
+     * Retrieves the number of results evicted to stay within the limits.
+     * @return The number of evictions
+     */
+    public synchronized long getEvictions() { return evictions; }
+
+    /**
+     * Retrieves the number of times the cache was cleared for a new index version.
+     * @return The number of invalidations
+     */
+    public synchronized long getInvalidations() { return invalidations; }
+
+    /**
+     * Retrieves the number of results in the cache.
+     * @return The number of cached results
+     */
+    public synchronized int size() { return entries.size(); }
+
+    /**
+     * Retrieves the estimated memory used by the cached results.
+     * @return The size of the cache in bytes
+     */
+    public synchronized long getBytes() { return bytes; }
+
+    /**
+     * Creates the JSON summary of the cache with its counters and size.
+     * @return The summary as a JSON object
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("hits", hits);
+        json.put("misses", misses);
+        json.put("evictions", evictions);
+        json.put("invalidations", invalidations);
+        json.put("entries", entries.size());
+        json.put("bytes", bytes);
+        json.put("hitRate", (hits + misses == 0) ? 0.0 : (double) hits / (hits + misses));
+        return json;
+    }
+
+    /** The results of a query with their estimated size. */
+    private static class Entry {
+        private final JSONArray results;
+        private final long bytes;
+
+        /**
+         * Constructs the entry.
+         * @param results The results of the query
+         * @param bytes The estimated size of the results in bytes
+         */
+        Entry(JSONArray results, long bytes) {
+            this.results = results;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package QueryPackage;
+
+import org.apache.lucene.search.suggest.Lookup;
+import org.apache.lucene.search.suggest.fst.WFSTCompletionLookup;
+import org.apache.lucene.store.ByteBuffersDirectory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * This class completes queries as they are typed from the suggester the indexer built
+ * next to the index. The completions are page titles and frequent terms held in a
+ * weighted FST, so a lookup walks the letters of the prefix and takes the heaviest paths
+ * below it instead of searching the index, and the whole suggester is a few compact
+ * arrays of bytes on the heap. Lookups are safe from any number of threads.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class QuerySuggester {
+    private final WFSTCompletionLookup lookup;
+    private final long lastModified;
+
+    /**
+     * Loads the suggester from its file.
+     * @param file The suggester file saved by the SuggesterBuilder
+     * @throws IOException
+     */
+    public QuerySuggester(File file) throws IOException {
+        lastModified = file.lastModified();
+        lookup = new WFSTCompletionLookup(new ByteBuffersDirectory(), "suggest");
+        try (InputStream input = Files.newInputStream(file.toPath())) {
+            lookup.load(input);
+        }
+    }
+
+    /**
+     * Finds the best completions of what has been typed so far, heaviest first. The
+     * whole prefix is completed first, such as a title; if that gives fewer than k
+     * completions, the last word of the prefix is completed and the words before it
+     * are kept.
+     * @param prefix The beginning of the query
+     * @param k The largest number of completions to return
+     * @return The completions of the prefix
+     * @throws IOException
+     */
+    public List<String> suggest(String prefix, int k) throws IOException {
+        String key = prefix.replaceAll("\\s+", " ").trim().toLowerCase(Locale.ROOT);
+        if (key.isEmpty() || k <= 0)
+            return new ArrayList<>();
+        if (prefix.endsWith(" "))
+            key += " ";
+
+        Set<String> completions = new LinkedHashSet<>();
+        for (Lookup.LookupResult result : lookup.lookup(key, false, k))
+            completions.add(result.key.toString());
+
+        int lastSpace = key.lastIndexOf(' ');
+        if (completions.size() < k && lastSpace > 0 && lastSpace < key.length() - 1) {
+            String words = key.substring(0, lastSpace + 1);
+            for (Lookup.LookupResult result : lookup.lookup(key.substring(lastSpace + 1),
+                    false, k)) {
+                if (completions.size() >= k)
+                    break;
+                completions.add(words + result.key);
+            }
+        }
+        return new ArrayList<>(completions);
+    }
+
+    /**
+     * Retrieves the number of completions the suggester holds.
+     * @return The number of completions
+     */
+    public long getCount() { return lookup.getCount(); }
+
+    /**
+     * Retrieves the heap memory the suggester uses.
+     * @return The size of the suggester in bytes
+     */
+    public long getSizeInBytes() { return lookup.ramBytesUsed(); }
+
+    /**
+     * Retrieves the time the suggester file was last changed when it was loaded, to tell
+     * when a newer suggester has been built.
+     * @return The modification time of the file in milliseconds
+     */
+    long getLastModified() { return lastModified; }
+}
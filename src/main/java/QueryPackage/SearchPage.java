@@ -0,0 +1,66 @@
+package QueryPackage;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * This class holds one page of the results of a query, with the cursor to ask for the
+ * page after it.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class SearchPage {
+    private final JSONArray results;
+    private final String cursor;
+    private final long totalHits;
+    private final boolean totalHitsExact;
+
+    /**
+     * Constructs the page.
+     * @param results The results of the page, in the shape of retrieveTopHits
+     * @param cursor The cursor of the next page, or null if this is the last page
+     * @param totalHits The number of hits of the query
+     * @param totalHitsExact True if the number of hits is exact; false if it is a lower
+     *                       bound
+     */
+    SearchPage(JSONArray results, String cursor, long totalHits, boolean totalHitsExact) {
+        this.results = results;
+        this.cursor = cursor;
+        this.totalHits = totalHits;
+        this.totalHitsExact = totalHitsExact;
+    }
+
+    /**
+     * Retrieves the results of the page.
+     * @return The results, with each row as a result and each column as the fields
+     */
+    public JSONArray getResults() { return results; }
+
+    /**
+     * Retrieves the cursor to give back for the next page.
+     * @return The opaque cursor, or null if there are no more results
+     */
+    public String getCursor() { return cursor; }
+
+    /**
+     * Retrieves the number of hits of the query.
+     * @return The number of hits, which is a lower bound for a query with many hits
+     */
+    public long getTotalHits() { return totalHits; }
+
+    /**
+     * Creates the JSON of the page with its results, cursor and number of hits.
+     * @return The page as a JSON object
+     */
+    @SuppressWarnings("unchecked")
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("results", results);
+        json.put("cursor", cursor);
+        json.put("totalHits", totalHits);
+        json.put("totalHitsExact", totalHitsExact);
+        return json;
+    }
+}
@@ -0,0 +1,429 @@
+package QueryPackage;
+
+import IndexPackage.LatencyHistogram;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class serves the query searcher over HTTP with the server built into the JDK, so
+ * that a frontend can search the index without starting a program per query. It
+ * answers these requests:
+ *
+ * GET /search?q=QUERY&amp;n=NUM_HITS returns the JSON array of retrieveTopHits, or of
+ * retrieveHitList without snippets when snippets=false is given.
+ * GET /page?q=QUERY&amp;n=PAGE_SIZE&amp;cursor=CURSOR returns one page of results with
+ * the cursor of the next page; the first page is asked for without a cursor.
+ * GET /suggest?q=PREFIX&amp;k=NUM returns the JSON array of completions of the prefix.
+ * GET /health returns whether the server is up and has finished warming up.
+ * GET /metrics returns the request counters, the search latencies and the result cache.
+ *
+ * Connections are kept alive between requests. Searches run on a bounded pool of worker
+ * threads with a bounded queue in front of it; when the queue is full, a search is
+ * turned away at once with 503 Service Unavailable instead of waiting, so the latency
+ * of the searches that are accepted stays low under overload. Completions take well
+ * under a millisecond, so they are answered at once without the workers.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class SearchServer {
+    private static final String INDEX_DIR = "Index_Files";
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_QUEUE_CAPACITY = 64;
+    private static final int DEFAULT_NUM_HITS = 10;
+    private static final int DEFAULT_NUM_SUGGESTIONS = 10;
+    private static final int MAX_NUM_HITS = 1000;
+    private static final int RETRY_AFTER_SECONDS = 1;
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final LuceneQuerySearcher querySearcher;
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+    private final LatencyHistogram searchLatencies = new LatencyHistogram();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final AtomicInteger activeSearches = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Constructs the server for the given searcher. The server does not accept
+     * connections until it is started.
+     * @param querySearcher The searcher to answer the searches with
+     * @param port The port to listen on
+     * @param numWorkers The number of searches run at the same time
+     * @param queueCapacity The number of searches that may wait for a worker before
+     *                      more searches are turned away
+     * @throws IOException
+     */
+    public SearchServer(LuceneQuerySearcher querySearcher, int port, int numWorkers,
+                        int queueCapacity) throws IOException {
+        this.querySearcher = querySearcher;
+        AtomicInteger workerNumber = new AtomicInteger();
+        workers = new ThreadPoolExecutor(numWorkers, numWorkers, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "search-worker-" +
+                            workerNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        workers.prestartAllCoreThreads();
+
+        server = HttpServer.create(new InetSocketAddress(port), queueCapacity);
+        server.createContext("/search", this::handleSearch);
+        server.createContext("/page", this::handleSearch);
+        server.createContext("/suggest", this::handleSuggest);
+        server.createContext("/health", this::handleHealth);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    /** Starts accepting connections. */
+    public void start() {
+        server.start();
+        System.out.println("Search server is listening on port " +
+                server.getAddress().getPort());
+    }
+
+    /**
+     * Stops accepting connections, waits up to the given time for the requests being
+     * answered, and stops the workers.
+     * @param delaySeconds The longest time to wait for the requests being answered
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        workers.shutdown();
+    }
+
+    /**
+     * Hands a search or page request to the workers, or turns it away with 503 if the
+     * queue of the workers is full. Runs on the thread that accepts the requests, so it
+     * must not block.
+     * @param exchange The request and its response
+     * @throws IOException
+     */
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        requests.increment();
+        if (!isGet(exchange))
+            return;
+        try {
+            workers.execute(() -> search(exchange));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            exchange.getResponseHeaders().set("Retry-After",
+                    Integer.toString(RETRY_AFTER_SECONDS));
+            sendJson(exchange, 503, error("The server is busy. Please try again."));
+        }
+    }
+
+    /**
+     * Runs a search or page request on a worker and sends its results.
+     * @param exchange The request and its response
+     */
+    private void search(HttpExchange exchange) {
+        activeSearches.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI()
+                    .getRawQuery());
+            String query = parameters.get("q");
+            if (query == null || query.trim().isEmpty()) {
+                clientErrors.increment();
+                sendJson(exchange, 400, error("The query parameter q is required."));
+                return;
+            }
+            int numHits = parseNumHits(parameters.get("n"));
+            if (numHits <= 0) {
+                clientErrors.increment();
+                sendJson(exchange, 400, error("The parameter n must be a number of " +
+                        "hits from 1 to " + MAX_NUM_HITS + "."));
+                return;
+            }
+            if (exchange.getHttpContext().getPath().equals("/page")) {
+                SearchPage page = querySearcher.retrievePage(query, numHits,
+                        parameters.get("cursor"));
+                sendJson(exchange, 200, page.toJson().toJSONString());
+            }
+            else if ("false".equals(parameters.get("snippets"))) {
+                JSONArray results = querySearcher.retrieveHitList(query, numHits);
+                sendJson(exchange, 200, results.toJSONString());
+            }
+            else {
+                JSONArray results = querySearcher.retrieveTopHits(query, numHits);
+                sendJson(exchange, 200, results.toJSONString());
+            }
+        } catch (IllegalArgumentException e) {
+            clientErrors.increment();
+            sendQuietly(exchange, 400, error(e.getMessage()));
+        } catch (ParseException e) {
+            clientErrors.increment();
+            sendQuietly(exchange, 400, error("The query could not be parsed: " +
+                    e.getMessage()));
+        } catch (Exception e) {
+            serverErrors.increment();
+            e.printStackTrace();
+            sendQuietly(exchange, 500, error("Error with searching the index."));
+        } finally {
+            searchLatencies.record(System.nanoTime() - start);
+            activeSearches.decrementAndGet();
+        }
+    }
+
+    /**
+     * Answers the completions of a prefix from the suggester of the index.
+     * @param exchange The request and its response
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    private void handleSuggest(HttpExchange exchange) throws IOException {
+        requests.increment();
+        if (!isGet(exchange))
+            return;
+        try {
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI()
+                    .getRawQuery());
+            String prefix = parameters.get("q");
+            int k = parseNumHits(parameters.get("k"), DEFAULT_NUM_SUGGESTIONS);
+            if (prefix == null || k <= 0) {
+                clientErrors.increment();
+                sendJson(exchange, 400, error("The parameter q is required and k must " +
+                        "be a number from 1 to " + MAX_NUM_HITS + "."));
+                return;
+            }
+            JSONArray completions = new JSONArray();
+            completions.addAll(querySearcher.suggest(prefix, k));
+            sendJson(exchange, 200, completions.toJSONString());
+        } catch (IllegalArgumentException e) {
+            clientErrors.increment();
+            sendQuietly(exchange, 400, error(e.getMessage()));
+        } catch (Exception e) {
+            serverErrors.increment();
+            e.printStackTrace();
+            sendQuietly(exchange, 500, error("Error with suggesting completions."));
+        }
+    }
+
+    /**
+     * Answers whether the server can search at full speed. Until the searcher has
+     * warmed up, the answer is 503 so that a load balancer does not send it traffic yet.
+     * @param exchange The request and its response
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        if (!isGet(exchange))
+            return;
+        JSONObject json = new JSONObject();
+        boolean ready = querySearcher.isReady();
+        json.put("status", ready ? "ok" : "warming");
+        sendJson(exchange, ready ? 200 : 503, json.toJSONString());
+    }
+
+    /**
+     * Answers the request counters, the search latencies and the result cache.
+     * @param exchange The request and its response
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        if (!isGet(exchange))
+            return;
+        JSONObject json = new JSONObject();
+        json.put("uptimeSeconds", (System.nanoTime() - startNanos) / NANOS_PER_SECOND);
+        json.put("ready", querySearcher.isReady());
+        json.put("searchRequests", requests.sum());
+        json.put("rejected", rejected.sum());
+        json.put("clientErrors", clientErrors.sum());
+        json.put("serverErrors", serverErrors.sum());
+        json.put("activeSearches", activeSearches.get());
+        json.put("queuedSearches", workers.getQueue().size());
+        json.put("workers", workers.getMaximumPoolSize());
+        json.put("searchLatency", searchLatencies.toJson());
+        json.put("resultCache", querySearcher.getResultCache().toJson());
+        sendJson(exchange, 200, json.toJSONString());
+    }
+
+    /**
+     * Checks that a request is a GET, and answers 405 Method Not Allowed if it is not.
+     * @param exchange The request and its response
+     * @return True if the request is a GET; false otherwise.
+     * @throws IOException
+     */
+    private boolean isGet(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("GET"))
+            return true;
+        clientErrors.increment();
+        exchange.getResponseHeaders().set("Allow", "GET");
+        sendJson(exchange, 405, error("Only GET requests are supported."));
+        return false;
+    }
+
+    /**
+     * Sends a JSON response with its length, which lets the client keep the connection
+     * open for its next request.
+     * @param exchange The request and its response
+     * @param status The HTTP status code
+     * @param body The JSON body
+     * @throws IOException
+     */
+    private static void sendJson(HttpExchange exchange, int status, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try (InputStream request = exchange.getRequestBody()) {
+            while (request.read() >= 0) {
+                //the rest of the request has to be read to reuse the connection
+            }
+        }
+        exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream response = exchange.getResponseBody()) {
+            response.write(bytes);
+        }
+    }
+
+    /**
+     * Sends a JSON response, ignoring a client that has gone away.
+     * @param exchange The request and its response
+     * @param status The HTTP status code
+     * @param body The JSON body
+     */
+    private static void sendQuietly(HttpExchange exchange, int status, String body) {
+        try {
+            sendJson(exchange, status, body);
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Creates the JSON body of an error.
+     * @param message The error message
+     * @return The JSON body
+     */
+    @SuppressWarnings("unchecked")
+    private static String error(String message) {
+        JSONObject json = new JSONObject();
+        json.put("error", message);
+        return json.toJSONString();
+    }
+
+    /**
+     * Parses the parameters of a URL query string.
+     * @param rawQuery The query string of the URL, still URL-encoded, or null
+     * @return The decoded value of each parameter
+     * @throws UnsupportedEncodingException
+     * @throws IllegalArgumentException if a value has a malformed % escape
+     */
+    private static Map<String, String> parseQuery(String rawQuery)
+            throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null)
+            return parameters;
+        for (String pair : rawQuery.split("&")) {
+            int split = pair.indexOf('=');
+            String name = (split < 0) ? pair : pair.substring(0, split);
+            String value = (split < 0) ? "" : pair.substring(split + 1);
+            parameters.put(URLDecoder.decode(name, "UTF-8"),
+                    URLDecoder.decode(value, "UTF-8"));
+        }
+        return parameters;
+    }
+
+    /**
+     * Parses the number of hits of a search.
+     * @param value The value of the n parameter, or null for the default
+     * @return The number of hits, or -1 if the value is not valid
+     */
+    private static int parseNumHits(String value) {
+        return parseNumHits(value, DEFAULT_NUM_HITS);
+    }
+
+    /**
+     * Parses a number of results to return, such as the hits of a search.
+     * @param value The value of the parameter, or null for the default
+     * @param defaultValue The number to return when no value was given
+     * @return The number of results, or -1 if the value is not valid
+     */
+    private static int parseNumHits(String value, int defaultValue) {
+        if (value == null || value.isEmpty())
+            return defaultValue;
+        try {
+            int numHits = Integer.parseInt(value);
+            return (numHits <= MAX_NUM_HITS) ? numHits : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Runs the search server from the command line until it is stopped. The options
+     * are --port=N (default 8080), --workers=N (default: the number of cores),
+     * --queue=N (default 64) and --index=PATH (default Index_Files). Any other option is
+     * a searcher option, such as --search-threads=N.
+     * @param args The options
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int numWorkers = Runtime.getRuntime().availableProcessors();
+        int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        String indexPath = INDEX_DIR;
+        List<String> searcherOptions = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--port="))
+                port = SearcherSettings.parsePositiveInt("port",
+                        arg.substring("--port=".length()));
+            else if (arg.startsWith("--workers="))
+                numWorkers = SearcherSettings.parsePositiveInt("workers",
+                        arg.substring("--workers=".length()));
+            else if (arg.startsWith("--queue="))
+                queueCapacity = SearcherSettings.parsePositiveInt("queue",
+                        arg.substring("--queue=".length()));
+            else if (arg.startsWith("--index="))
+                indexPath = arg.substring("--index=".length());
+            else if (SearcherSettings.isOption(arg))
+                searcherOptions.add(arg);
+            else
+                throw new RuntimeException("Unknown argument " + arg + ". The search " +
+                        "server only takes options in the form --name=value.");
+        }
+
+        LuceneQuerySearcher querySearcher = new LuceneQuerySearcher(indexPath,
+                SearcherSettings.parse(searcherOptions.toArray(new String[0])));
+        SearchServer searchServer = new SearchServer(querySearcher, port, numWorkers,
+                queueCapacity);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            searchServer.stop(1);
+            try {
+                querySearcher.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }));
+        searchServer.start();
+        querySearcher.warmUp();
+    }
+}
@@ -0,0 +1,225 @@
+package QueryPackage;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * This class holds the settings used by the query searcher. The defaults search each
+ * query on the calling thread with a result cache of the default size, as the searcher
+ * always has. Options are given on the command line in the form --name=value.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+public class SearcherSettings {
+    public static final String MMAP_DIRECTORY = "mmap";
+    public static final String NIO_DIRECTORY = "nio";
+    public static final String FS_DIRECTORY = "fs";
+    private static final String PRELOAD_ALL = "all";
+    private static final int DEFAULT_SLICE_DOCS = 250000;
+    private static final int DEFAULT_SLICE_SEGMENTS = 5;
+    private static final int DEFAULT_CURSOR_SECONDS = 300;
+
+    private int searchThreads;
+    private int sliceDocs = DEFAULT_SLICE_DOCS;
+    private int sliceSegments = DEFAULT_SLICE_SEGMENTS;
+    private int cacheEntries = QueryResultCache.DEFAULT_MAX_ENTRIES;
+    private long cacheBytes = QueryResultCache.DEFAULT_MAX_BYTES;
+    private int cursorSeconds = DEFAULT_CURSOR_SECONDS;
+    private String directoryType = MMAP_DIRECTORY;
+    private Set<String> preloadExtensions = Collections.emptySet();
+    private String warmupPath;
+
+    /**
+     * Creates the settings from the command line flags. Only arguments starting with
+     * "--" are read; any other argument is ignored here.
+     * @param args The command line arguments
+     * @return The settings for the searcher
+     */
+    public static SearcherSettings parse(String[] args) {
+        SearcherSettings settings = new SearcherSettings();
+        for (String arg : args) {
+            if (!isOption(arg))
+                continue;
+            int split = arg.indexOf('=');
+            String name = (split < 0) ? arg.substring(2) : arg.substring(2, split);
+            String value = (split < 0) ? "" : arg.substring(split + 1);
+            settings.set(name, value);
+        }
+        return settings;
+    }
+
+    /**
+     * Checks if a command line argument is an option rather than part of a query.
+     * @param arg The command line argument
+     * @return True if the argument is an option; false otherwise.
+     */
+    public static boolean isOption(String arg) { return arg.startsWith("--"); }
+
+    /**
+     * Sets a single option by its command line name.
+     * @param name The name of the option without the leading dashes
+     * @param value The value given for the option
+     */
+    private void set(String name, String value) {
+        switch (name) {
+            case "search-threads":
+                setSearchThreads(parseNonNegativeInt(name, value));
+                break;
+            case "slice-docs":
+                setSliceDocs(parsePositiveInt(name, value));
+                break;
+            case "slice-segments":
+                setSliceSegments(parsePositiveInt(name, value));
+                break;
+            case "cache-entries":
+                setCacheEntries(parseNonNegativeInt(name, value));
+                break;
+            case "cache-mb":
+                setCacheBytes((long) parseNonNegativeInt(name, value) << 20);
+                break;
+            case "cursor-seconds":
+                setCursorSeconds(parsePositiveInt(name, value));
+                break;
+            case "directory":
+                setDirectoryType(value);
+                break;
+            case "preload":
+                setPreloadExtensions(value.isEmpty() ? Collections.emptySet() :
+                        new HashSet<>(Arrays.asList(value.toLowerCase(Locale.ROOT)
+                                .split(","))));
+                break;
+            case "warmup":
+                setWarmupPath(value.isEmpty() ? null : value);
+                break;
+            default:
+                throw new RuntimeException("Unknown searcher option --" + name + ".");
+        }
+    }
+
+    /**
+     * Parses the value of an option that must be a positive integer. The other entry
+     * points of the package parse their own options with it too.
+     * @param name The name of the option, used for the error message
+     * @param value The value given for the option
+     * @return The value as an integer
+     */
+    static int parsePositiveInt(String name, String value) {
+        try {
+            int result = Integer.parseInt(value);
+            if (result > 0)
+                return result;
+        } catch (NumberFormatException e) {
+            //fall through to the error below
+        }
+        throw new RuntimeException("Option --" + name + " requires a positive " +
+                "integer but was given \"" + value + "\".");
+    }
+
+    /**
+     * Parses the value of an option that must be zero or a positive integer.
+     * @param name The name of the option, used for the error message
+     * @param value The value given for the option
+     * @return The value as an integer
+     */
+    private static int parseNonNegativeInt(String name, String value) {
+        return value.equals("0") ? 0 : parsePositiveInt(name, value);
+    }
+
+    /**
+     * Retrieves the number of threads each query is searched, loaded and highlighted
+     * on. A value of 0 runs each query on the thread that asked for it.
+     * @return The number of search threads
+     */
+    public int getSearchThreads() { return searchThreads; }
+
+    public void setSearchThreads(int searchThreads) { this.searchThreads = searchThreads; }
+
+    /**
+     * Retrieves the number of documents that small segments are grouped up to in one
+     * slice of a parallel search. A segment with more documents is a slice by itself.
+     * @return The documents per slice
+     */
+    public int getSliceDocs() { return sliceDocs; }
+
+    public void setSliceDocs(int sliceDocs) { this.sliceDocs = sliceDocs; }
+
+    /**
+     * Retrieves the largest number of segments in one slice of a parallel search.
+     * @return The segments per slice
+     */
+    public int getSliceSegments() { return sliceSegments; }
+
+    public void setSliceSegments(int sliceSegments) { this.sliceSegments = sliceSegments; }
+
+    /**
+     * Retrieves the largest number of query results the result cache keeps. A value of
+     * 0 turns the cache off.
+     * @return The maximum number of cached results
+     */
+    public int getCacheEntries() { return cacheEntries; }
+
+    public void setCacheEntries(int cacheEntries) { this.cacheEntries = cacheEntries; }
+
+    /**
+     * Retrieves the largest estimated size of the results the result cache keeps.
+     * @return The maximum size of the cache in bytes
+     */
+    public long getCacheBytes() { return cacheBytes; }
+
+    public void setCacheBytes(long cacheBytes) { this.cacheBytes = cacheBytes; }
+
+    /**
+     * Retrieves the time the version of the index of a paged query is kept after its
+     * last page was read, so that its next page comes from the same version.
+     * @return The seconds a version is kept for its cursors
+     */
+    public int getCursorSeconds() { return cursorSeconds; }
+
+    public void setCursorSeconds(int cursorSeconds) { this.cursorSeconds = cursorSeconds; }
+
+    /**
+     * Retrieves the implementation the index directories are opened with: mmap for
+     * MMapDirectory, nio for NIOFSDirectory or fs to let FSDirectory.open choose.
+     * @return The type of the index directories
+     */
+    public String getDirectoryType() { return directoryType; }
+
+    public void setDirectoryType(String directoryType) {
+        if (!directoryType.equals(MMAP_DIRECTORY) && !directoryType.equals(NIO_DIRECTORY)
+                && !directoryType.equals(FS_DIRECTORY))
+            throw new RuntimeException("Unknown directory type \"" + directoryType +
+                    "\". Choose mmap, nio or fs.");
+        this.directoryType = directoryType;
+    }
+
+    /**
+     * Retrieves the extensions of the index files that are loaded into memory before
+     * the searcher is ready, such as tim, doc and pos, or all for every file.
+     * @return The extensions of the files to preload, which may be empty
+     */
+    public Set<String> getPreloadExtensions() { return preloadExtensions; }
+
+    public void setPreloadExtensions(Set<String> preloadExtensions) {
+        this.preloadExtensions = preloadExtensions;
+    }
+
+    /**
+     * Checks if every index file is loaded into memory before the searcher is ready.
+     * @return True if all files are preloaded; false otherwise.
+     */
+    public boolean isPreloadAll() { return preloadExtensions.contains(PRELOAD_ALL); }
+
+    /**
+     * Retrieves the path of the file of queries that are run once before the searcher
+     * is ready, one query per line.
+     * @return The path of the warm-up queries, or null for no warm-up queries
+     */
+    public String getWarmupPath() { return warmupPath; }
+
+    public void setWarmupPath(String warmupPath) { this.warmupPath = warmupPath; }
+}
@@ -0,0 +1,206 @@
+package QueryPackage;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexNotFoundException;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.store.Directory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class manages the searcher for an index that was kept as separate shards, in the
+ * same way a SearcherManager does for a single index. The searcher reads all the shards
+ * together through a MultiReader. On a refresh, only the shards with a new commit are
+ * reopened and shards that were added since are opened; the readers of the other shards
+ * are shared with the previous searcher, and each shard reader is closed once no
+ * searcher uses it anymore.
+ *
+ *  @author Lisa Chen, Nikhil Gowda, Poorvaja Sundar, Edward Zabrensky, Jason Zellmer
+ *  @version 1.0
+ *  @since Mar 03, 2020
+ */
+class ShardedSearcherManager extends ReferenceManager<IndexSearcher> {
+    private final Path indexPath;
+    private final String shardPrefix;
+    private final SearcherFactory searcherFactory;
+    private final IndexDirectories directories;
+    private final Map<Path, Directory> shardDirectories = new LinkedHashMap<>();
+
+    /**
+     * Opens the shards in the index directory and creates the first searcher.
+     * @param indexPath The path of the index directory holding the shards
+     * @param shardPrefix The start of the name of each shard directory
+     * @param searcherFactory The factory that creates each searcher
+     * @param directories The opener of the shard directories
+     * @throws IOException
+     */
+    ShardedSearcherManager(Path indexPath, String shardPrefix,
+                           SearcherFactory searcherFactory,
+                           IndexDirectories directories) throws IOException {
+        this.indexPath = indexPath;
+        this.shardPrefix = shardPrefix;
+        this.searcherFactory = searcherFactory;
+        this.directories = directories;
+        List<Directory> newShards = findNewShards();
+        if (newShards.isEmpty())
+            throw new IndexNotFoundException("No index was found in " + indexPath);
+
+        DirectoryReader[] shardReaders = new DirectoryReader[newShards.size()];
+        try {
+            for (int i = 0; i < shardReaders.length; i++)
+                shardReaders[i] = DirectoryReader.open(newShards.get(i));
+            current = createSearcher(shardReaders);
+        } finally {
+            decRefAll(shardReaders);
+        }
+    }
+
+    /**
+     * Opens the shard directories that hold an index and are not yet searched.
+     * @return The directories of the new shards
+     * @throws IOException
+     */
+    private List<Directory> findNewShards() throws IOException {
+        List<Directory> newShards = new ArrayList<>();
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(indexPath,
+                shardPrefix + "*")) {
+            for (Path shard : shards) {
+                if (shardDirectories.containsKey(shard))
+                    continue;
+                Directory shardDirectory = directories.open(shard);
+                if (DirectoryReader.indexExists(shardDirectory)) {
+                    shardDirectories.put(shard, shardDirectory);
+                    newShards.add(shardDirectory);
+                }
+                else
+                    shardDirectory.close();
+            }
+        }
+        return newShards;
+    }
+
+    /**
+     * Reopens the shards that have a new commit and opens the shards that are new.
+     * @param referenceToRefresh The current searcher
+     * @return The searcher over the new commits, or null if no shard has changed
+     * @throws IOException
+     */
+    @Override
+    protected IndexSearcher refreshIfNeeded(IndexSearcher referenceToRefresh)
+            throws IOException {
+        DirectoryReader[] oldReaders = ((ShardsReader)
+                referenceToRefresh.getIndexReader()).shardReaders;
+        List<Directory> newShards = findNewShards();
+        DirectoryReader[] shardReaders = new DirectoryReader[oldReaders.length +
+                newShards.size()];
+        boolean changed = !newShards.isEmpty();
+        try {
+            for (int i = 0; i < oldReaders.length; i++) {
+                DirectoryReader oldReader = oldReaders[i];
+                DirectoryReader newReader = DirectoryReader.openIfChanged(oldReader);
+                if (newReader == null) {
+                    oldReader.incRef();
+                    newReader = oldReader;
+                }
+                else
+                    changed = true;
+                shardReaders[i] = newReader;
+            }
+            for (int i = 0; i < newShards.size(); i++)
+                shardReaders[oldReaders.length + i] = DirectoryReader.open(newShards.get(i));
+            return changed ? createSearcher(shardReaders) : null;
+        } finally {
+            decRefAll(shardReaders);
+        }
+    }
+
+    /**
+     * Creates a searcher over the given shard readers. The MultiReader takes its own
+     * reference to each shard reader and releases it when it is closed.
+     * @param shardReaders The reader of each shard
+     * @return The searcher over all the shards
+     * @throws IOException
+     */
+    private IndexSearcher createSearcher(DirectoryReader[] shardReaders)
+            throws IOException {
+        return searcherFactory.newSearcher(new ShardsReader(shardReaders), null);
+    }
+
+    /**
+     * Retrieves the version of the index a searcher of this manager reads. The version
+     * of each shard only grows with its commits, so their sum grows whenever any shard
+     * changes or a shard is added.
+     * @param reader The reader of a searcher created by this manager
+     * @return The version of the shards together
+     */
+    static long getVersion(IndexReader reader) {
+        long version = 0;
+        for (DirectoryReader shardReader : ((ShardsReader) reader).shardReaders)
+            version += shardReader.getVersion();
+        return version;
+    }
+
+    /**
+     * Releases the caller's reference to each of the given readers.
+     * @param readers The readers, some of which may be null
+     * @throws IOException
+     */
+    private static void decRefAll(IndexReader[] readers) throws IOException {
+        for (IndexReader reader : readers) {
+            if (reader != null)
+                reader.decRef();
+        }
+    }
+
+    @Override
+    protected void decRef(IndexSearcher reference) throws IOException {
+        reference.getIndexReader().decRef();
+    }
+
+    @Override
+    protected boolean tryIncRef(IndexSearcher reference) {
+        return reference.getIndexReader().tryIncRef();
+    }
+
+    @Override
+    protected int getRefCount(IndexSearcher reference) {
+        return reference.getIndexReader().getRefCount();
+    }
+
+    /**
+     * Closes the shard directories once the last searcher has been closed.
+     * @throws IOException
+     */
+    @Override
+    protected void afterClose() throws IOException {
+        for (Directory directory : shardDirectories.values())
+            directory.close();
+    }
+
+    /** The MultiReader over the shards, which keeps the reader of each shard. */
+    private static class ShardsReader extends MultiReader {
+        private final DirectoryReader[] shardReaders;
+
+        /**
+         * Constructs the reader over the given shard readers.
+         * @param shardReaders The reader of each shard
+         * @throws IOException
+         */
+        ShardsReader(DirectoryReader[] shardReaders) throws IOException {
+            super(shardReaders.clone(), false);
+            this.shardReaders = Arrays.copyOf(shardReaders, shardReaders.length);
+        }
+    }
+}